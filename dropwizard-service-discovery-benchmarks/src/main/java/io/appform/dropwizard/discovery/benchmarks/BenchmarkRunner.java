@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.appform.dropwizard.discovery.benchmarks;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the benchmarks at 1, 2, 4 ... threads up to the number of cores. Every run reports throughput, latency
+ * percentiles and allocation rate.
+ * Usage: java -jar target/benchmarks.jar [benchmark name regex]
+ * Use {@code java -cp target/benchmarks.jar org.openjdk.jmh.Main} to get the full JMH command line instead.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        final String include = args.length > 0
+                               ? args[0]
+                               : BenchmarkRunner.class.getPackage().getName() + ".*";
+        for (int threads : threadCounts()) {
+            final ChainedOptionsBuilder options = new OptionsBuilder()
+                    .include(include)
+                    .mode(Mode.Throughput)
+                    .mode(Mode.SampleTime)
+                    .timeUnit(TimeUnit.MICROSECONDS)
+                    .threads(threads)
+                    .forks(1)
+                    .warmupIterations(3)
+                    .warmupTime(TimeValue.seconds(2))
+                    .measurementIterations(5)
+                    .measurementTime(TimeValue.seconds(2))
+                    .addProfiler(GCProfiler.class);
+            new Runner(options.build()).run();
+        }
+    }
+
+    private static TreeSet<Integer> threadCounts() {
+        final int cores = Runtime.getRuntime().availableProcessors();
+        final TreeSet<Integer> threadCounts = new TreeSet<>();
+        for (int threads = 1; threads < cores; threads *= 2) {
+            threadCounts.add(threads);
+        }
+        threadCounts.add(cores);
+        return threadCounts;
+    }
+}
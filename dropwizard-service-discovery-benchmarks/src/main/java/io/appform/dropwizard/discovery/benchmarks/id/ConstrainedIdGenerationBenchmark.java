@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.appform.dropwizard.discovery.benchmarks.id;
+
+import io.appform.dropwizard.discovery.bundle.id.Id;
+import io.appform.dropwizard.discovery.bundle.id.IdGenerator;
+import io.appform.dropwizard.discovery.bundle.id.constraints.IdValidationConstraint;
+import io.appform.dropwizard.discovery.bundle.id.constraints.impl.JavaHashCodeBasedKeyPartitioner;
+import io.appform.dropwizard.discovery.bundle.id.constraints.impl.MurmurBasedKeyPartitioner;
+import io.appform.dropwizard.discovery.bundle.id.constraints.impl.PartitionValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Benchmarks for id generation with 0, 1 or more {@link PartitionValidator}s.
+ * The first validator picks one of 1024 partitions. Every further validator halves the acceptable ids, so the
+ * numbers show how the cost grows with rejections.
+ */
+@State(Scope.Benchmark)
+public class ConstrainedIdGenerationBenchmark {
+    private static final String PREFIX = "BENCH";
+
+    @Param({"0", "1", "4"})
+    public int validators;
+
+    private List<IdValidationConstraint> constraints;
+
+    @Setup
+    public void setup() {
+        IdGenerator.initialize(23);
+        constraints = new ArrayList<>();
+        for (int i = 0; i < validators; i++) {
+            constraints.add(0 == i
+                            ? new PartitionValidator(7, new JavaHashCodeBasedKeyPartitioner(1024))
+                            : new PartitionValidator(1, new MurmurBasedKeyPartitioner(2)));
+        }
+    }
+
+    @Benchmark
+    public Optional<Id> generateWithConstraints() {
+        return IdGenerator.generateWithConstraints(PREFIX, constraints);
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.appform.dropwizard.discovery.benchmarks.id;
+
+import io.appform.dropwizard.discovery.bundle.id.Id;
+import io.appform.dropwizard.discovery.bundle.id.IdGenerationMode;
+import io.appform.dropwizard.discovery.bundle.id.IdGenerator;
+import io.appform.dropwizard.discovery.bundle.id.IdGeneratorEngine;
+import io.appform.dropwizard.discovery.bundle.id.IdLayout;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks for plain id generation
+ */
+public class IdGenerationBenchmark {
+    private static final String PREFIX = "BENCH";
+
+    @State(Scope.Benchmark)
+    public static class DefaultGenerator {
+        @Setup
+        public void setup() {
+            IdGenerator.initialize(23);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Engine {
+        @Param({"RANDOM", "MONOTONIC", "PERMUTED"})
+        public IdGenerationMode mode;
+
+        @Param({"CLASSIC", "WIDE"})
+        public IdLayout layout;
+
+        IdGeneratorEngine engine;
+
+        @Setup
+        public void setup() {
+            engine = new IdGeneratorEngine(23, mode, layout);
+        }
+    }
+
+    @Benchmark
+    public Id generate(DefaultGenerator generator) {
+        return IdGenerator.generate(PREFIX);
+    }
+
+    @Benchmark
+    public Id generateWithEngine(Engine engine) {
+        return engine.engine.generate(PREFIX);
+    }
+
+    @Benchmark
+    public StringBuilder generateInto(DefaultGenerator generator) {
+        return IdGenerator.generateInto(new StringBuilder(32), PREFIX);
+    }
+}
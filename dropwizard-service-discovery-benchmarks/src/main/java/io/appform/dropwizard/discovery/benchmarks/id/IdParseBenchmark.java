@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.appform.dropwizard.discovery.benchmarks.id;
+
+import io.appform.dropwizard.discovery.bundle.id.BulkIdParser;
+import io.appform.dropwizard.discovery.bundle.id.Id;
+import io.appform.dropwizard.discovery.bundle.id.IdColumns;
+import io.appform.dropwizard.discovery.bundle.id.IdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Optional;
+
+/**
+ * Benchmarks for id parsing. Ids are spread over a few minutes, so both hits and misses of the parser's minute
+ * cache are covered.
+ */
+@State(Scope.Thread)
+public class IdParseBenchmark {
+    private static final int NUM_IDS = 1024;
+
+    private final String[] ids = new String[NUM_IDS];
+    private final BulkIdParser bulkIdParser = new BulkIdParser();
+    private int next;
+
+    @Setup
+    public void setup() {
+        IdGenerator.initialize(23);
+        final String generated = IdGenerator.generate("BENCH").getId();
+        final String date = generated.substring(5, 13);
+        for (int i = 0; i < NUM_IDS; i++) {
+            ids[i] = String.format("BENCH%s%02d%05d%04d%03d", date, i % 4, i * 7 % 60000, 23, i % 1000);
+        }
+    }
+
+    @Benchmark
+    public Optional<Id> parse() {
+        return IdGenerator.parse(ids[next++ & (NUM_IDS - 1)]);
+    }
+
+    @Benchmark
+    public boolean isValidFormat() {
+        return IdGenerator.isValidFormat(ids[next++ & (NUM_IDS - 1)]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_IDS)
+    public IdColumns parseBulk() {
+        return bulkIdParser.parse(ids);
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.appform.dropwizard.discovery.benchmarks.id;
+
+import io.appform.dropwizard.discovery.bundle.id.Id;
+import io.appform.dropwizard.discovery.bundle.id.IdGenerator;
+import io.appform.dropwizard.discovery.bundle.id.constraints.impl.JavaHashCodeBasedKeyPartitioner;
+import io.appform.dropwizard.discovery.bundle.id.constraints.impl.KeyPartitioner;
+import io.appform.dropwizard.discovery.bundle.id.constraints.impl.MurmurBasedKeyPartitioner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+/**
+ * Benchmarks for {@link KeyPartitioner} implementations
+ */
+@State(Scope.Thread)
+public class KeyPartitionerBenchmark {
+    private static final int NUM_IDS = 1024;
+
+    @Param({"javaHashCode", "murmur"})
+    public String partitionerType;
+
+    private KeyPartitioner partitioner;
+    private List<Id> ids;
+    private int next;
+
+    @Setup
+    public void setup() {
+        IdGenerator.initialize(23);
+        ids = IdGenerator.generateBatch("BENCH", NUM_IDS);
+        switch (partitionerType) {
+            case "javaHashCode":
+                partitioner = new JavaHashCodeBasedKeyPartitioner(1024);
+                break;
+            case "murmur":
+                partitioner = new MurmurBasedKeyPartitioner(1024);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown partitioner " + partitionerType);
+        }
+    }
+
+    @Benchmark
+    public int partition() {
+        return partitioner.partition(ids.get(next++ & (NUM_IDS - 1)));
+    }
+}
@@ -26,6 +26,7 @@ public class Constants {
     public static final int DEFAULT_PORT = -1;
     public static final int DEFAULT_DW_CHECK_INTERVAl = 15;
     public static final int DEFAULT_RETRY_CONN_INTERVAL = 5000;
+    public static final int DEFAULT_SEQUENCE_BLOCK_SIZE = 10_000;
 
     private Constants() {}
 }
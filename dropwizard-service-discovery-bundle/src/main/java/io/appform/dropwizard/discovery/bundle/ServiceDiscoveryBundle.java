@@ -17,6 +17,7 @@
 
 package io.appform.dropwizard.discovery.bundle;
 
+import com.codahale.metrics.MetricRegistry;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.flipkart.ranger.ServiceProviderBuilders;
 import com.flipkart.ranger.healthcheck.Healthcheck;
@@ -31,7 +32,10 @@ import io.appform.dropwizard.discovery.bundle.healthchecks.InitialDelayChecker;
 import io.appform.dropwizard.discovery.bundle.healthchecks.InternalHealthChecker;
 import io.appform.dropwizard.discovery.bundle.healthchecks.RotationCheck;
 import io.appform.dropwizard.discovery.bundle.id.IdGenerator;
+import io.appform.dropwizard.discovery.bundle.id.IdLayout;
+import io.appform.dropwizard.discovery.bundle.id.IdPool;
 import io.appform.dropwizard.discovery.bundle.id.NodeIdManager;
+import io.appform.dropwizard.discovery.bundle.id.SequenceGenerator;
 import io.appform.dropwizard.discovery.bundle.id.constraints.IdValidationConstraint;
 import io.appform.dropwizard.discovery.bundle.monitors.DropwizardHealthMonitor;
 import io.appform.dropwizard.discovery.bundle.monitors.DropwizardServerStartupCheck;
@@ -55,6 +59,7 @@ import org.apache.curator.retry.RetryForever;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.nio.file.Paths;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
@@ -69,6 +74,7 @@ public abstract class ServiceDiscoveryBundle<T extends Configuration> implements
     private List<Healthcheck> healthchecks = Lists.newArrayList();
     private ServiceProvider<ShardInfo> serviceProvider;
     private final List<IdValidationConstraint> globalIdConstraints;
+    private MetricRegistry metricRegistry;
 
     @Getter
     private CuratorFramework curator;
@@ -84,6 +90,18 @@ public abstract class ServiceDiscoveryBundle<T extends Configuration> implements
     @VisibleForTesting
     private DropwizardServerStatus serverStatus;
 
+    /**
+     * Pool of pre-generated ids. Available only if the pool has been configured.
+     */
+    @Getter
+    private IdPool idPool;
+
+    /**
+     * Numeric sequences shared by all nodes of the service. Available once the bundle has started.
+     */
+    @Getter
+    private SequenceGenerator sequenceGenerator;
+
     protected ServiceDiscoveryBundle() {
         globalIdConstraints = Collections.emptyList();
     }
@@ -103,6 +121,7 @@ public abstract class ServiceDiscoveryBundle<T extends Configuration> implements
     public void run(T configuration, Environment environment) throws Exception {
         serviceDiscoveryConfiguration = getRangerConfiguration(configuration);
         val objectMapper = environment.getObjectMapper();
+        metricRegistry = environment.metrics();
         final String namespace = serviceDiscoveryConfiguration.getNamespace();
         final String serviceName = getServiceName(configuration);
         final String hostname = getHost();
@@ -254,12 +273,34 @@ public abstract class ServiceDiscoveryBundle<T extends Configuration> implements
             curator.start();
             serviceProvider.start();
             serviceDiscoveryClient.start();
-            NodeIdManager nodeIdManager = new NodeIdManager(curator, serviceName);
-            IdGenerator.initialize(nodeIdManager.fixNodeId(), globalIdConstraints, Collections.emptyMap());
+            final IdLayout idLayout = serviceDiscoveryConfiguration.getIdLayout();
+            final String leaseFile = serviceDiscoveryConfiguration.getNodeIdLeaseFile();
+            NodeIdManager nodeIdManager = new NodeIdManager(
+                    curator,
+                    serviceName,
+                    idLayout,
+                    metricRegistry,
+                    Strings.isNullOrEmpty(leaseFile) ? null : Paths.get(leaseFile));
+            IdGenerator.initialize(nodeIdManager.fixNodeId(), idLayout, globalIdConstraints, Collections.emptyMap());
+            if (null != metricRegistry) {
+                IdGenerator.registerMetrics(metricRegistry);
+            }
+            if (null != serviceDiscoveryConfiguration.getIdPool()) {
+                idPool = new IdPool(serviceDiscoveryConfiguration.getIdPool(), metricRegistry);
+                idPool.start();
+            }
+            sequenceGenerator = new SequenceGenerator(
+                    curator, serviceName, serviceDiscoveryConfiguration.getSequenceBlockSize(), metricRegistry);
         }
 
         @Override
         public void stop() throws Exception {
+            if (null != idPool) {
+                idPool.stop();
+            }
+            if (null != sequenceGenerator) {
+                sequenceGenerator.close();
+            }
             serviceDiscoveryClient.stop();
             serviceProvider.stop();
             curator.close();
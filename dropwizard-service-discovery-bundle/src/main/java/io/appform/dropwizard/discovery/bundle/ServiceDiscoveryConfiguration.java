@@ -18,9 +18,12 @@
 package io.appform.dropwizard.discovery.bundle;
 
 import com.google.common.base.Strings;
+import io.appform.dropwizard.discovery.bundle.id.IdLayout;
+import io.appform.dropwizard.discovery.bundle.id.IdPoolConfiguration;
 import lombok.*;
 import org.hibernate.validator.constraints.NotEmpty;
 
+import javax.validation.Valid;
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
@@ -73,6 +76,29 @@ public class ServiceDiscoveryConfiguration {
 
     private int dropwizardCheckStaleness;
 
+    /**
+     * Set this to keep pre-generated ids ready in an {@link io.appform.dropwizard.discovery.bundle.id.IdPool}
+     */
+    @Valid
+    private IdPoolConfiguration idPool;
+
+    /**
+     * Layout of generated ids. Set this to WIDE for more than 10,000 nodes or 1,000 ids per millisecond on a node.
+     */
+    @NotNull
+    private IdLayout idLayout = IdLayout.CLASSIC;
+
+    /**
+     * Set this to a local file path to keep the node id of the process across restarts
+     */
+    private String nodeIdLeaseFile;
+
+    /**
+     * Numbers leased from zookeeper at a time by the {@link io.appform.dropwizard.discovery.bundle.id.SequenceGenerator}
+     */
+    @Min(1)
+    private int sequenceBlockSize = Constants.DEFAULT_SEQUENCE_BLOCK_SIZE;
+
     @Builder
     public ServiceDiscoveryConfiguration(
             String namespace,
@@ -86,7 +112,11 @@ public class ServiceDiscoveryConfiguration {
             long initialDelaySeconds,
             boolean initialRotationStatus,
             int dropwizardCheckInterval,
-            int dropwizardCheckStaleness) {
+            int dropwizardCheckStaleness,
+            IdPoolConfiguration idPool,
+            IdLayout idLayout,
+            String nodeIdLeaseFile,
+            int sequenceBlockSize) {
         this.namespace = Strings.isNullOrEmpty(namespace)
                          ? Constants.DEFAULT_NAMESPACE
                          : namespace;
@@ -109,5 +139,50 @@ public class ServiceDiscoveryConfiguration {
                                        ? Constants.DEFAULT_DW_CHECK_INTERVAl
                                        : dropwizardCheckInterval;
         this.dropwizardCheckStaleness = dropwizardCheckStaleness;
+        this.idPool = idPool;
+        this.idLayout = null == idLayout
+                        ? IdLayout.CLASSIC
+                        : idLayout;
+        this.nodeIdLeaseFile = nodeIdLeaseFile;
+        this.sequenceBlockSize = sequenceBlockSize == 0
+                                 ? Constants.DEFAULT_SEQUENCE_BLOCK_SIZE
+                                 : sequenceBlockSize;
+    }
+
+    /**
+     * Constructor from before the id generation settings were added. Those are left at their defaults.
+     *
+     * @deprecated Use the builder
+     */
+    @Deprecated
+    public ServiceDiscoveryConfiguration(
+            String namespace,
+            String environment,
+            String zookeeper,
+            int connectionRetryIntervalMillis,
+            String publishedHost,
+            int publishedPort,
+            int refreshTimeMs,
+            boolean disableWatchers,
+            long initialDelaySeconds,
+            boolean initialRotationStatus,
+            int dropwizardCheckInterval,
+            int dropwizardCheckStaleness) {
+        this(namespace,
+             environment,
+             zookeeper,
+             connectionRetryIntervalMillis,
+             publishedHost,
+             publishedPort,
+             refreshTimeMs,
+             disableWatchers,
+             initialDelaySeconds,
+             initialRotationStatus,
+             dropwizardCheckInterval,
+             dropwizardCheckStaleness,
+             null,
+             null,
+             null,
+             0);
     }
 }
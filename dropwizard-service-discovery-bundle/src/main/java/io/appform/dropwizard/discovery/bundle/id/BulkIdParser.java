@@ -0,0 +1,321 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Decodes large numbers of ids into {@link IdColumns}.
+ * Inputs are split into chunks which are decoded in parallel on a {@link ForkJoinPool}. Every chunk uses it's own
+ * {@link IdParser}, so the minute cache of the parser is not shared between threads. No {@link Id}, Optional
+ * or date objects are created for the decoded ids.
+ * Inputs that are not valid ids are marked invalid in the result, see {@link IdColumns#isValid(int)}.
+ * Buffers are split into byte ranges that end on a line break. Lines are counted per range in parallel, which gives
+ * every range it's offset in the result, and then every range is decoded in place. No index of lines is built.
+ */
+public class BulkIdParser {
+    private static final int CHUNK_SIZE = 8192;
+    //Roughly CHUNK_SIZE ids per range
+    private static final int RANGE_BYTES = 256 * 1024;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Decode on the common fork-join pool
+     */
+    public BulkIdParser() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public BulkIdParser(ForkJoinPool pool) {
+        Preconditions.checkArgument(null != pool, "Provide a fork-join pool");
+        this.pool = pool;
+    }
+
+    /**
+     * @param ids Ids to decode. Null entries are marked invalid.
+     * @return Decoded ids in input order
+     */
+    public IdColumns parse(CharSequence[] ids) {
+        Preconditions.checkArgument(null != ids, "Provide ids to parse");
+        return decode(ids.length, () -> index -> ids[index]);
+    }
+
+    /**
+     * The stream is drained before decoding starts.
+     *
+     * @param ids Ids to decode
+     * @return Decoded ids in stream order
+     */
+    public IdColumns parse(Stream<? extends CharSequence> ids) {
+        Preconditions.checkArgument(null != ids, "Provide ids to parse");
+        return parse(ids.toArray(CharSequence[]::new));
+    }
+
+    /**
+     * Decode newline delimited, ASCII encoded ids between the position and the limit of the buffer. Every line,
+     * including an empty one, gets an entry in the result. A trailing \r on a line is ignored, as is a newline at the
+     * end of the buffer. The position of the buffer is not changed.
+     *
+     * @param lines Buffer with one id per line
+     * @return Decoded ids in line order
+     */
+    public IdColumns parse(ByteBuffer lines) {
+        Preconditions.checkArgument(null != lines, "Provide a buffer to parse");
+        final int[] bounds = rangeBounds(lines);
+        final int ranges = bounds.length - 1;
+        final int[] offsets = new int[ranges + 1];
+        forEachRange(ranges, range -> offsets[range + 1] = countLines(lines, bounds[range], bounds[range + 1]));
+        for (int range = 0; range < ranges; range++) {
+            offsets[range + 1] += offsets[range];
+        }
+        final IdColumns columns = new IdColumns(offsets[ranges]);
+        forEachRange(ranges, range -> decodeRange(lines, bounds[range], bounds[range + 1], offsets[range], columns));
+        return columns;
+    }
+
+    /**
+     * Memory map the given file and decode it as in {@link #parse(ByteBuffer)}.
+     * Files bigger than 2GB are not supported, split them up.
+     *
+     * @param file File with one id per line
+     * @return Decoded ids in line order
+     * @throws IOException if the file can not be mapped
+     */
+    public IdColumns parse(Path file) throws IOException {
+        Preconditions.checkArgument(null != file, "Provide a file to parse");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            Preconditions.checkArgument(size <= Integer.MAX_VALUE, "File %s is too big to be mapped: %s bytes", file, size);
+            return parse(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    private IdColumns decode(int size, Supplier<IntFunction<CharSequence>> lines) {
+        final IdColumns columns = new IdColumns(size);
+        final DecodeTask task = new DecodeTask(lines, columns, 0, size);
+        if (size <= CHUNK_SIZE) {
+            task.compute();
+        }
+        else {
+            pool.invoke(task);
+        }
+        return columns;
+    }
+
+    private void forEachRange(int ranges, IntConsumer action) {
+        if (ranges == 1) {
+            action.accept(0);
+        }
+        else if (ranges > 1) {
+            pool.invoke(new RangeTask(action, 0, ranges));
+        }
+    }
+
+    /**
+     * Splits the buffer between position and limit into ranges of about {@link #RANGE_BYTES}. Every range but the
+     * last one ends right after a line break.
+     *
+     * @return Start of every range, followed by the end of the last one
+     */
+    private static int[] rangeBounds(ByteBuffer buffer) {
+        final int position = buffer.position();
+        final int limit = buffer.limit();
+        final int[] bounds = new int[(limit - position) / RANGE_BYTES + 2];
+        int count = 0;
+        int cut = position;
+        bounds[count++] = cut;
+        while (limit - cut > RANGE_BYTES) {
+            cut += RANGE_BYTES;
+            while (cut < limit && buffer.get(cut - 1) != '\n') {
+                cut++;
+            }
+            bounds[count++] = cut;
+        }
+        if (bounds[count - 1] != limit) {
+            bounds[count++] = limit;
+        }
+        return Arrays.copyOf(bounds, count);
+    }
+
+    private static int countLines(ByteBuffer buffer, int from, int to) {
+        int lines = 0;
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == '\n') {
+                lines++;
+            }
+        }
+        //Only the last range can end without a line break
+        if (to > from && buffer.get(to - 1) != '\n') {
+            lines++;
+        }
+        return lines;
+    }
+
+    private static void decodeRange(ByteBuffer buffer, int from, int to, int offset, IdColumns columns) {
+        final IdParser parser = new IdParser(IdFormatter.DATE_FORMATTER);
+        final ByteLine line = new ByteLine(buffer);
+        int index = offset;
+        int start = from;
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == '\n') {
+                decode(parser, line.reset(start, lineEnd(buffer, start, i)), index++, columns);
+                start = i + 1;
+            }
+        }
+        if (start < to) {
+            decode(parser, line.reset(start, lineEnd(buffer, start, to)), index, columns);
+        }
+    }
+
+    //End of a line without a trailing \r
+    private static int lineEnd(ByteBuffer buffer, int start, int end) {
+        return end > start && buffer.get(end - 1) == '\r' ? end - 1 : end;
+    }
+
+    private static void decode(IdParser parser, CharSequence id, int index, IdColumns columns) {
+        final IdLayout layout = IdLayout.of(id);
+        if (!IdParser.isValidFormat(id, layout)) {
+            columns.setInvalid(index);
+            return;
+        }
+        final int base = id.length() - layout.suffixLength();
+        final long epochMillis = parser.epochMillis(id, base);
+        if (IdParser.INVALID_TIME == epochMillis) {
+            columns.setInvalid(index);
+            return;
+        }
+        columns.set(index, epochMillis, IdParser.node(id, base, layout), IdParser.exponent(id, base, layout));
+    }
+
+    private static final class DecodeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Supplier<IntFunction<CharSequence>> lines;
+        private final transient IdColumns columns;
+        private final int from;
+        private final int to;
+
+        private DecodeTask(Supplier<IntFunction<CharSequence>> lines, IdColumns columns, int from, int to) {
+            this.lines = lines;
+            this.columns = columns;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > CHUNK_SIZE) {
+                final int middle = (from + to) >>> 1;
+                invokeAll(new DecodeTask(lines, columns, from, middle),
+                          new DecodeTask(lines, columns, middle, to));
+                return;
+            }
+            final IdParser parser = new IdParser(IdFormatter.DATE_FORMATTER);
+            final IntFunction<CharSequence> chunk = lines.get();
+            for (int i = from; i < to; i++) {
+                decode(parser, chunk.apply(i), i, columns);
+            }
+        }
+    }
+
+    /**
+     * Runs an action for every range index, one range per task
+     */
+    private static final class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient IntConsumer action;
+        private final int from;
+        private final int to;
+
+        private RangeTask(IntConsumer action, int from, int to) {
+            this.action = action;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                final int middle = (from + to) >>> 1;
+                invokeAll(new RangeTask(action, from, middle),
+                          new RangeTask(action, middle, to));
+                return;
+            }
+            action.accept(from);
+        }
+    }
+
+    /**
+     * Reusable view of one line of an ASCII buffer. Reads the buffer with absolute gets only, so one buffer can be
+     * shared by all tasks.
+     */
+    private static final class ByteLine implements CharSequence {
+        private final ByteBuffer buffer;
+        private int start;
+        private int length;
+
+        private ByteLine(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        private ByteLine reset(int start, int end) {
+            this.start = start;
+            this.length = end - start;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (buffer.get(start + index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            final char[] chars = new char[to - from];
+            for (int i = from; i < to; i++) {
+                chars[i - from] = charAt(i);
+            }
+            return new String(chars);
+        }
+
+        @Override
+        public String toString() {
+            return subSequence(0, length).toString();
+        }
+    }
+}
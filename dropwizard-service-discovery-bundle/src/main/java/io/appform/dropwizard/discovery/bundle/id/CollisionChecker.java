@@ -22,18 +22,35 @@ import lombok.extern.slf4j.Slf4j;
 import java.util.BitSet;
 
 /**
- * Checks collisions between ids in given period
+ * Checks collisions between ids in given period.
+ * Only moves forward in time. Locations for a time older than the current one are refused, as the locations used
+ * back then are not known anymore.
+ *
+ * @deprecated Not used by the id generator anymore. {@link LogicalClock} and the {@link ExponentAllocator}
+ * implementations track used exponents per millisecond and handle clock regressions and exhausted milliseconds.
  */
 @Slf4j
+@Deprecated
 public class CollisionChecker {
-    private BitSet bitSet = new BitSet(1000);
+    private final BitSet bitSet;
     private long currentInstant = 0;
 
     public CollisionChecker() {
-        //Nothing to do here
+        this(IdLayout.CLASSIC);
+    }
+
+    /**
+     * @param layout Layout of the ids to check, decides the number of locations in a millisecond
+     */
+    public CollisionChecker(IdLayout layout) {
+        this.bitSet = new BitSet(layout.maxIdsPerMs());
     }
 
     public boolean check(long time, int location) {
+        if(time < currentInstant) {
+            log.debug("Refusing location for {} as checker has moved on to {}", time, currentInstant);
+            return false;
+        }
         if(currentInstant != time) {
             currentInstant = time;
             bitSet.clear();
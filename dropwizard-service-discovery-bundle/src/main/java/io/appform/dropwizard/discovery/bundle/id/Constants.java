@@ -6,6 +6,7 @@ package io.appform.dropwizard.discovery.bundle.id;
 public class Constants {
     public static final int MAX_ID_PER_MS = 1000;
     public static final int MAX_NUM_NODES = 10000;
+    public static final long DEFAULT_MAX_TIME_LEAD_MS = 5;
 
     private Constants() {}
 }
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import io.appform.dropwizard.discovery.bundle.id.constraints.ConstructibleIdConstraint;
+import io.appform.dropwizard.discovery.bundle.id.constraints.IdValidationConstraint;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * A list of constraints compiled into an array and evaluated in a plain loop.
+ * Adaptive pipelines count how often every constraint rejects an id and, every now and then, move the constraints
+ * that reject most often to the front, so rejected ids are thrown away after fewer checks. Reordering never moves
+ * a constraint across a fail fast one, so whether a rejection is retryable is the same as in registration order.
+ * Pipelines are thread safe.
+ */
+class ConstraintPipeline {
+    static final ConstraintPipeline EMPTY = new ConstraintPipeline(new IdValidationConstraint[0], false);
+
+    //Reorder roughly once every these many rejections
+    private static final int REORDER_INTERVAL = 1024;
+
+    private static final class Stage {
+        private final IdValidationConstraint constraint;
+        private final int segment;
+        private final LongAdder evaluations = new LongAdder();
+        private final LongAdder rejections = new LongAdder();
+        private double evaluationScore;
+        private double rejectionScore;
+
+        private Stage(IdValidationConstraint constraint, int segment) {
+            this.constraint = constraint;
+            this.segment = segment;
+        }
+
+        private double rejectionRate() {
+            return evaluationScore > 0
+                   ? rejectionScore / evaluationScore
+                   : 0;
+        }
+    }
+
+    private final ConstructibleIdConstraint constructible;
+    private final boolean adaptive;
+    private final AtomicBoolean reordering = new AtomicBoolean();
+    private volatile Stage[] stages;
+
+    private ConstraintPipeline(IdValidationConstraint[] constraints, boolean adaptive) {
+        this.adaptive = adaptive;
+        this.constructible = Arrays.stream(constraints)
+                .filter(constraint -> constraint instanceof ConstructibleIdConstraint)
+                .map(constraint -> (ConstructibleIdConstraint) constraint)
+                .findFirst()
+                .orElse(null);
+        final Stage[] compiled = new Stage[constraints.length];
+        int segment = 0;
+        for (int i = 0; i < constraints.length; i++) {
+            if (constraints[i].failFast()) {
+                segment++;
+                compiled[i] = new Stage(constraints[i], segment++);
+            }
+            else {
+                compiled[i] = new Stage(constraints[i], segment);
+            }
+        }
+        this.stages = compiled;
+    }
+
+    /**
+     * Compile a pipeline that adapts it's order to observed rejections. Use for long lived constraint lists.
+     */
+    static ConstraintPipeline adaptive(List<IdValidationConstraint> constraints) {
+        return null == constraints || constraints.isEmpty()
+               ? EMPTY
+               : new ConstraintPipeline(constraints.toArray(new IdValidationConstraint[0]), true);
+    }
+
+    /**
+     * Compile a pipeline that evaluates constraints in the given order. Use for one-off constraint lists.
+     */
+    static ConstraintPipeline fixed(List<IdValidationConstraint> constraints) {
+        return null == constraints || constraints.isEmpty()
+               ? EMPTY
+               : new ConstraintPipeline(constraints.toArray(new IdValidationConstraint[0]), false);
+    }
+
+    /**
+     * @return The rejecting constraint, or null if the id satisfies all constraints
+     */
+    IdValidationConstraint firstRejection(Id id) {
+        final Stage[] current = stages;
+        for (Stage stage : current) {
+            if (adaptive) {
+                stage.evaluations.increment();
+            }
+            if (!stage.constraint.isValid(id)) {
+                if (adaptive) {
+                    stage.rejections.increment();
+                    maybeReorder();
+                }
+                return stage.constraint;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * First {@link ConstructibleIdConstraint} in registration order, if any
+     */
+    ConstructibleIdConstraint constructible() {
+        return constructible;
+    }
+
+    /**
+     * Constraints in the order they are currently evaluated in
+     */
+    List<IdValidationConstraint> order() {
+        return Arrays.stream(stages)
+                .map(stage -> stage.constraint)
+                .collect(Collectors.toList());
+    }
+
+    private void maybeReorder() {
+        if ((ThreadLocalRandom.current().nextInt() & (REORDER_INTERVAL - 1)) != 0
+                || !reordering.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            final Stage[] reordered = stages.clone();
+            for (Stage stage : reordered) {
+                stage.evaluationScore = stage.evaluationScore / 2 + stage.evaluations.sumThenReset();
+                stage.rejectionScore = stage.rejectionScore / 2 + stage.rejections.sumThenReset();
+            }
+            Arrays.sort(reordered, Comparator.<Stage>comparingInt(stage -> stage.segment)
+                    .thenComparing(Comparator.comparingDouble(Stage::rejectionRate).reversed()));
+            stages = reordered;
+        }
+        finally {
+            reordering.set(false);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.appform.dropwizard.discovery.bundle.id.constraints.IdValidationConstraint;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Global and domain specific constraints of an {@link IdGeneratorEngine}.
+ * All constraints are held in an immutable {@link Snapshot} published through a volatile reference. Readers grab the
+ * current snapshot without locking and see a consistent set of constraints even while constraints are being
+ * registered, for example when partitions are added at runtime. Writers are serialized and publish a new snapshot.
+ * Pipelines of domains that did not change are carried over, so they keep their adaptive ordering.
+ */
+class ConstraintRegistry {
+
+    static final class Snapshot {
+        private static final Snapshot EMPTY = new Snapshot(ImmutableList.of(),
+                                                           ConstraintPipeline.EMPTY,
+                                                           ImmutableMap.of(),
+                                                           ImmutableMap.of());
+
+        private final List<IdValidationConstraint> globalConstraints;
+        private final ConstraintPipeline global;
+        private final Map<String, List<IdValidationConstraint>> domainConstraints;
+        private final Map<String, ConstraintPipeline> domains;
+
+        private Snapshot(
+                List<IdValidationConstraint> globalConstraints,
+                ConstraintPipeline global,
+                Map<String, List<IdValidationConstraint>> domainConstraints,
+                Map<String, ConstraintPipeline> domains) {
+            this.globalConstraints = globalConstraints;
+            this.global = global;
+            this.domainConstraints = domainConstraints;
+            this.domains = domains;
+        }
+
+        ConstraintPipeline global() {
+            return global;
+        }
+
+        ConstraintPipeline domain(String domain) {
+            return null == domain
+                   ? ConstraintPipeline.EMPTY
+                   : domains.getOrDefault(domain, ConstraintPipeline.EMPTY);
+        }
+    }
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    Snapshot snapshot() {
+        return snapshot;
+    }
+
+    synchronized void registerGlobal(List<IdValidationConstraint> constraints) {
+        final Snapshot current = snapshot;
+        final List<IdValidationConstraint> globalConstraints = ImmutableList.<IdValidationConstraint>builder()
+                .addAll(current.globalConstraints)
+                .addAll(constraints)
+                .build();
+        snapshot = new Snapshot(globalConstraints,
+                                ConstraintPipeline.adaptive(globalConstraints),
+                                current.domainConstraints,
+                                current.domains);
+    }
+
+    synchronized void registerDomain(String domain, List<IdValidationConstraint> constraints) {
+        Preconditions.checkArgument(null != domain, "Provide a domain");
+        final Snapshot current = snapshot;
+        final Map<String, List<IdValidationConstraint>> domainConstraints = new HashMap<>(current.domainConstraints);
+        domainConstraints.put(domain, ImmutableList.<IdValidationConstraint>builder()
+                .addAll(current.domainConstraints.getOrDefault(domain, ImmutableList.of()))
+                .addAll(constraints)
+                .build());
+        snapshot = build(current.globalConstraints,
+                         current.global,
+                         domainConstraints,
+                         current,
+                         Collections.singleton(domain));
+    }
+
+    /**
+     * Replace the global constraints and the constraints of the given domains. Other domains are left as they are.
+     */
+    synchronized void initialize(
+            List<IdValidationConstraint> globalConstraints,
+            Map<String, List<IdValidationConstraint>> domainSpecificConstraints) {
+        final Snapshot current = snapshot;
+        final List<IdValidationConstraint> global = null == globalConstraints
+                                                    ? ImmutableList.of()
+                                                    : ImmutableList.copyOf(globalConstraints);
+        final Map<String, List<IdValidationConstraint>> domainConstraints = new HashMap<>(current.domainConstraints);
+        if (null != domainSpecificConstraints) {
+            domainSpecificConstraints.forEach(
+                    (domain, constraints) -> domainConstraints.put(domain, ImmutableList.copyOf(constraints)));
+        }
+        snapshot = build(global,
+                         ConstraintPipeline.adaptive(global),
+                         domainConstraints,
+                         current,
+                         null == domainSpecificConstraints
+                         ? Collections.emptySet()
+                         : domainSpecificConstraints.keySet());
+    }
+
+    synchronized void clear() {
+        snapshot = Snapshot.EMPTY;
+    }
+
+    private static Snapshot build(
+            List<IdValidationConstraint> globalConstraints,
+            ConstraintPipeline global,
+            Map<String, List<IdValidationConstraint>> domainConstraints,
+            Snapshot current,
+            Set<String> changedDomains) {
+        final ImmutableMap.Builder<String, ConstraintPipeline> domains = ImmutableMap.builder();
+        domainConstraints.forEach(
+                (domain, constraints) -> domains.put(domain,
+                                                     changedDomains.contains(domain) || !current.domains.containsKey(domain)
+                                                     ? ConstraintPipeline.adaptive(constraints)
+                                                     : current.domains.get(domain)));
+        return new Snapshot(globalConstraints, global, ImmutableMap.copyOf(domainConstraints), domains.build());
+    }
+}
@@ -28,6 +28,13 @@ public class CuratorPathUtils {
     }
 
     public String path(int nodeId) {
-        return String.format("/%s/%s/%03d", "id-generator", processName, nodeId);
+        return String.format("%s/%03d", parentPath(), nodeId);
+    }
+
+    /**
+     * @return Path under which the node ids of the process are claimed
+     */
+    public String parentPath() {
+        return String.format("/%s/%s", "id-generator", processName);
     }
 }
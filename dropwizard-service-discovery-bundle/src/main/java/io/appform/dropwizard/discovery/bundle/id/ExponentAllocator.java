@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+/**
+ * Hands out exponents within a millisecond. An exponent is never handed out twice for the same millisecond.
+ * Implementations are thread safe.
+ */
+public interface ExponentAllocator {
+
+    /**
+     * Claim a free exponent for the given millisecond.
+     *
+     * @param time Millisecond for which the exponent is needed
+     * @return The claimed exponent, or -1 if all exponents for this millisecond have been used up or the allocator
+     * has already moved past the given time
+     */
+    int allocate(long time);
+
+    /**
+     * Claim a specific exponent for the given millisecond.
+     *
+     * @param time     Millisecond for which the exponent is needed
+     * @param exponent Exponent to claim
+     * @return true if the exponent was free and has been claimed
+     */
+    boolean allocate(long time, int exponent);
+
+    /**
+     * Claim up to count free exponents for the given millisecond.
+     *
+     * @param time      Millisecond for which the exponents are needed
+     * @param exponents Array to write the claimed exponents to
+     * @param offset    Position in the array to start writing from
+     * @param count     Maximum number of exponents to claim
+     * @return Number of exponents claimed. Less than count if the millisecond ran out of exponents.
+     */
+    int allocate(long time, int[] exponents, int offset, int count);
+
+    /**
+     * Check if a millisecond has run out of exponents.
+     *
+     * @param time Millisecond to check
+     * @return true if no exponent can be claimed for the millisecond any more. The default implementation does not
+     * track this and always returns false.
+     */
+    default boolean exhausted(long time) {
+        return false;
+    }
+}
@@ -17,21 +17,157 @@
 
 package io.appform.dropwizard.discovery.bundle.id;
 
-import lombok.*;
+import com.google.common.base.Preconditions;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
 
 import java.util.Date;
+import java.util.Objects;
 
 /**
- * A representation of an ID
+ * A representation of an ID.
+ * The generation time is kept as epoch millis. The {@link Date} and the prefix are created only when asked for.
  */
-@Data
-@AllArgsConstructor
 @NoArgsConstructor
-@Builder
-@ToString
 public class Id {
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    @Getter
     private String id;
-    private Date generatedDate;
+    @Getter
+    @Setter
     private int node;
+    @Getter
+    @Setter
     private int exponent;
+
+    private long epochMillis = NO_TIME;
+    private Date generatedDate;
+    private String prefix;
+
+    @Builder
+    public Id(String id, Date generatedDate, int node, int exponent) {
+        this.id = id;
+        this.generatedDate = generatedDate;
+        this.epochMillis = null == generatedDate ? NO_TIME : generatedDate.getTime();
+        this.node = node;
+        this.exponent = exponent;
+    }
+
+    Id(String id, long epochMillis, int node, int exponent) {
+        this.id = id;
+        this.epochMillis = epochMillis;
+        this.node = node;
+        this.exponent = exponent;
+    }
+
+    public long epochMillis() {
+        return null != generatedDate ? generatedDate.getTime() : epochMillis;
+    }
+
+    public int node() {
+        return node;
+    }
+
+    public int exponent() {
+        return exponent;
+    }
+
+    /**
+     * @return The prefix that was passed during generation, or null if the id is too short to have one
+     */
+    public String prefix() {
+        if (null == prefix && null != id && id.length() >= layout().suffixLength()) {
+            prefix = id.substring(0, id.length() - layout().suffixLength());
+        }
+        return prefix;
+    }
+
+    /**
+     * @return Layout of the id
+     */
+    public IdLayout layout() {
+        return IdLayout.of(id);
+    }
+
+    /**
+     * @return 8 byte form of the id, see {@link IdCodec}
+     * @throws IllegalArgumentException if the id was generated outside the range of packed ids or does not have the
+     *                                  classic layout
+     */
+    public long toPacked() {
+        Preconditions.checkArgument(IdLayout.CLASSIC == layout(), "Only ids with the classic layout can be packed");
+        return IdCodec.pack(epochMillis(), node, exponent);
+    }
+
+    /**
+     * @return 8 byte form of the id as big endian bytes, see {@link IdCodec}
+     * @throws IllegalArgumentException if the id was generated outside the range of packed ids or does not have the
+     *                                  classic layout
+     */
+    public byte[] toBytes() {
+        return IdCodec.toBytes(toPacked());
+    }
+
+    /**
+     * @return 16 byte form of the id, see {@link IdCodec}
+     */
+    public byte[] toWideBytes() {
+        return IdCodec.toWideBytes(epochMillis(), node, exponent, layout());
+    }
+
+    /**
+     * @param encoding Text encoding to use
+     * @return Prefix followed by the packed form of the id in the given encoding
+     * @throws IllegalArgumentException if the id was generated outside the range of packed ids or does not have the
+     *                                  classic layout
+     */
+    public String toText(IdTextEncoding encoding) {
+        final String idPrefix = prefix();
+        return encoding.encode(null == idPrefix ? "" : idPrefix, toPacked());
+    }
+
+    public Date getGeneratedDate() {
+        if (null == generatedDate && NO_TIME != epochMillis) {
+            generatedDate = new Date(epochMillis);
+        }
+        return generatedDate;
+    }
+
+    public void setGeneratedDate(Date generatedDate) {
+        this.generatedDate = generatedDate;
+        this.epochMillis = null == generatedDate ? NO_TIME : generatedDate.getTime();
+    }
+
+    public void setId(String id) {
+        this.id = id;
+        this.prefix = null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Id)) {
+            return false;
+        }
+        final Id other = (Id) o;
+        return node == other.node
+                && exponent == other.exponent
+                && epochMillis() == other.epochMillis()
+                && Objects.equals(id, other.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, epochMillis(), node, exponent);
+    }
+
+    @Override
+    public String toString() {
+        return "Id(id=" + id + ", generatedDate=" + getGeneratedDate() + ", node=" + node + ", exponent=" + exponent + ")";
+    }
 }
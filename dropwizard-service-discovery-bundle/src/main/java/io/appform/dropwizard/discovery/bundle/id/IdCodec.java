@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import com.google.common.base.Preconditions;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Compact forms of an id. The prefix is not part of the binary forms, it has to be passed back in when decoding.
+ * <ul>
+ * <li>Packed: 8 bytes (a long). Milliseconds since {@link #PACKED_EPOCH_MILLIS} in the top 40 bits and
+ * node * {@link Constants#MAX_ID_PER_MS} + exponent in the lower 24 bits. Covers ids with the
+ * {@link IdLayout#CLASSIC} layout generated from 2020 to late 2054.</li>
+ * <li>Wide: 16 bytes. Epoch millis as a long, the node as an int, then the layout in the top byte and the exponent
+ * in the lower three bytes of an int. Covers every id.</li>
+ * <li>Text: prefix followed by the packed form in one of the {@link IdTextEncoding}s.</li>
+ * </ul>
+ * All forms keep id order: packed longs compare like the ids with {@link Long#compareUnsigned(long, long)}, binary
+ * forms compare like the ids byte by byte (unsigned) and text forms compare like the ids as strings.
+ * Decoding an encoded id gives back the same decimal id. Decimal ids carry local time, so two ids generated an hour
+ * apart at the end of daylight saving can share a decimal form. The encoded forms keep them apart.
+ */
+public final class IdCodec {
+    public static final long PACKED_EPOCH_MILLIS = 1577836800000L; //2020-01-01T00:00:00Z
+    public static final int PACKED_LENGTH = Long.BYTES;
+    public static final int WIDE_LENGTH = Long.BYTES + 2 * Integer.BYTES;
+
+    private static final int TIME_SHIFT = 24;
+    private static final long MAX_PACKED_TIME = (1L << (Long.SIZE - TIME_SHIFT)) - 1;
+    private static final long SEQUENCE_MASK = (1L << TIME_SHIFT) - 1;
+
+    private static final int LAYOUT_SHIFT = 24;
+    private static final int EXPONENT_MASK = (1 << LAYOUT_SHIFT) - 1;
+    private static final IdLayout[] LAYOUTS = IdLayout.values();
+
+    private static final List<ThreadLocal<IdFormatter>> idFormatters = Arrays.stream(LAYOUTS)
+            .map(layout -> ThreadLocal.withInitial(() -> new IdFormatter(IdFormatter.DATE_FORMATTER, layout)))
+            .collect(Collectors.toList());
+
+    private IdCodec() {}
+
+    /**
+     * @return 8 byte form of the id
+     * @throws IllegalArgumentException if the time is outside the packed range or node or exponent are invalid
+     */
+    public static long pack(long epochMillis, int node, int exponent) {
+        checkNodeAndExponent(node, exponent, IdLayout.CLASSIC);
+        final long time = epochMillis - PACKED_EPOCH_MILLIS;
+        Preconditions.checkArgument(time >= 0 && time <= MAX_PACKED_TIME,
+                                    "Time %s is outside the range of packed ids", epochMillis);
+        return time << TIME_SHIFT | ((long) node * Constants.MAX_ID_PER_MS + exponent);
+    }
+
+    public static long epochMillis(long packed) {
+        return (packed >>> TIME_SHIFT) + PACKED_EPOCH_MILLIS;
+    }
+
+    public static int node(long packed) {
+        return (int) ((packed & SEQUENCE_MASK) / Constants.MAX_ID_PER_MS);
+    }
+
+    public static int exponent(long packed) {
+        return (int) ((packed & SEQUENCE_MASK) % Constants.MAX_ID_PER_MS);
+    }
+
+    /**
+     * @return Big endian bytes of the packed form
+     */
+    public static byte[] toBytes(long packed) {
+        return ByteBuffer.allocate(PACKED_LENGTH).putLong(packed).array();
+    }
+
+    /**
+     * @return 16 byte form of an id with the classic layout
+     */
+    public static byte[] toWideBytes(long epochMillis, int node, int exponent) {
+        return toWideBytes(epochMillis, node, exponent, IdLayout.CLASSIC);
+    }
+
+    /**
+     * @return 16 byte form of an id with the given layout
+     */
+    public static byte[] toWideBytes(long epochMillis, int node, int exponent, IdLayout layout) {
+        checkNodeAndExponent(node, exponent, layout);
+        return ByteBuffer.allocate(WIDE_LENGTH)
+                .putLong(epochMillis)
+                .putInt(node)
+                .putInt(layout.ordinal() << LAYOUT_SHIFT | exponent)
+                .array();
+    }
+
+    /**
+     * @param prefix Prefix of the id
+     * @param packed 8 byte form of the id
+     * @return Decoded id, or null if the packed value does not hold a valid node and exponent
+     */
+    static Id fromPacked(String prefix, long packed) {
+        final int node = node(packed);
+        if (node >= Constants.MAX_NUM_NODES) {
+            return null;
+        }
+        return toId(prefix, epochMillis(packed), node, exponent(packed), IdLayout.CLASSIC);
+    }
+
+    /**
+     * @param prefix Prefix of the id
+     * @param bytes  8 or 16 byte form of the id
+     * @return Decoded id, or null if the bytes are not a valid encoded id
+     */
+    static Id fromBytes(String prefix, byte[] bytes) {
+        if (null == bytes) {
+            return null;
+        }
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (bytes.length == PACKED_LENGTH) {
+            return fromPacked(prefix, buffer.getLong());
+        }
+        if (bytes.length != WIDE_LENGTH) {
+            return null;
+        }
+        final long epochMillis = buffer.getLong();
+        final int node = buffer.getInt();
+        final int layoutAndExponent = buffer.getInt();
+        final int layoutIndex = layoutAndExponent >>> LAYOUT_SHIFT;
+        if (layoutIndex >= LAYOUTS.length) {
+            return null;
+        }
+        final IdLayout layout = LAYOUTS[layoutIndex];
+        final int exponent = layoutAndExponent & EXPONENT_MASK;
+        if (!layout.isValid(node, exponent)) {
+            return null;
+        }
+        return toId(prefix, epochMillis, node, exponent, layout);
+    }
+
+    /**
+     * @param text     Prefix followed by the encoded id
+     * @param encoding Encoding of the id
+     * @return Decoded id, or null if the text is not a valid encoded id
+     */
+    static Id fromText(String text, IdTextEncoding encoding) {
+        if (null == text) {
+            return null;
+        }
+        final long packed;
+        try {
+            packed = encoding.decode(text);
+        }
+        catch (NumberFormatException e) {
+            return null;
+        }
+        return fromPacked(text.substring(0, text.length() - encoding.width()), packed);
+    }
+
+    private static Id toId(String prefix, long epochMillis, int node, int exponent, IdLayout layout) {
+        final String id = idFormatters.get(layout.ordinal())
+                .get()
+                .format(null == prefix ? "" : prefix, epochMillis, node, exponent);
+        return new Id(id, epochMillis, node, exponent);
+    }
+
+    private static void checkNodeAndExponent(int node, int exponent, IdLayout layout) {
+        Preconditions.checkArgument(layout.isValid(node, exponent),
+                                    "Invalid node %s or exponent %s for %s layout", node, exponent, layout);
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import lombok.Getter;
+
+/**
+ * Ids decoded into primitive columns. Entry i of every column belongs to the i-th input id.
+ * The arrays are handed out as is, without copies. Entries for inputs that are not valid ids have
+ * {@link #INVALID_TIME} as time and -1 as node and exponent.
+ */
+@Getter
+public class IdColumns {
+    public static final long INVALID_TIME = IdParser.INVALID_TIME;
+
+    private final int size;
+    private final long[] epochMillis;
+    private final int[] node;
+    private final int[] exponent;
+
+    IdColumns(int size) {
+        this.size = size;
+        this.epochMillis = new long[size];
+        this.node = new int[size];
+        this.exponent = new int[size];
+    }
+
+    /**
+     * @param index Index of the input id
+     * @return true if the input at the index was a valid id
+     */
+    public boolean isValid(int index) {
+        return INVALID_TIME != epochMillis[index];
+    }
+
+    void set(int index, long millis, int node, int exponent) {
+        this.epochMillis[index] = millis;
+        this.node[index] = node;
+        this.exponent[index] = exponent;
+    }
+
+    void setInvalid(int index) {
+        set(index, INVALID_TIME, -1, -1);
+    }
+}
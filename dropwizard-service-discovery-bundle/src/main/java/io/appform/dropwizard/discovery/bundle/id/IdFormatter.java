@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+
+import java.io.IOException;
+
+/**
+ * Renders ids of a layout into a reusable char buffer.
+ * The yyMMddHHmmss part of the timestamp is computed once per second and reused for every id in that second.
+ * Instances are NOT thread safe. Use one per thread.
+ */
+class IdFormatter {
+    static final int DATE_LENGTH = 15;
+    //Lengths for the classic layout
+    static final int NODE_LENGTH = 4;
+    static final int EXPONENT_LENGTH = 3;
+    static final int SUFFIX_LENGTH = DATE_LENGTH + NODE_LENGTH + EXPONENT_LENGTH;
+    static final DateTimeFormatter DATE_FORMATTER = DateTimeFormat.forPattern("yyMMddHHmmssSSS");
+
+    private static final int SECOND_LENGTH = 12;
+
+    private final DateTimeFormatter dateFormatter;
+    private final IdLayout layout;
+    private final int suffixLength;
+    private final char[] secondChars = new char[SECOND_LENGTH];
+    private long cachedSecond = Long.MIN_VALUE;
+    private char[] buffer = new char[64];
+
+    IdFormatter(DateTimeFormatter dateFormatter) {
+        this(dateFormatter, IdLayout.CLASSIC);
+    }
+
+    IdFormatter(DateTimeFormatter dateFormatter, IdLayout layout) {
+        this.dateFormatter = dateFormatter;
+        this.layout = layout;
+        this.suffixLength = layout.suffixLength();
+    }
+
+    String format(String prefix, long time, int node, int exponent) {
+        final int prefixLength = prefix.length();
+        ensureCapacity(prefixLength + suffixLength);
+        prefix.getChars(0, prefixLength, buffer, 0);
+        writeSuffix(prefixLength, time, node, exponent);
+        return new String(buffer, 0, prefixLength + suffixLength);
+    }
+
+    StringBuilder formatTo(StringBuilder out, String prefix, long time, int node, int exponent) {
+        writeSuffix(0, time, node, exponent);
+        return out.append(prefix)
+                .append(buffer, 0, suffixLength);
+    }
+
+    <T extends Appendable> T formatTo(T out, String prefix, long time, int node, int exponent) throws IOException {
+        writeSuffix(0, time, node, exponent);
+        out.append(prefix);
+        for (int i = 0; i < suffixLength; i++) {
+            out.append(buffer[i]);
+        }
+        return out;
+    }
+
+    private void writeSuffix(int offset, long time, int node, int exponent) {
+        final long second = Math.floorDiv(time, 1000L);
+        if (second != cachedSecond) {
+            dateFormatter.print(second * 1000L).getChars(0, SECOND_LENGTH, secondChars, 0);
+            cachedSecond = second;
+        }
+        System.arraycopy(secondChars, 0, buffer, offset, SECOND_LENGTH);
+        writeDigits(offset + SECOND_LENGTH, (int) (time - second * 1000L), 3);
+        writeDigits(offset + DATE_LENGTH, node, layout.nodeLength());
+        writeDigits(offset + DATE_LENGTH + layout.nodeLength(), exponent, layout.exponentLength());
+        if (layout.hasMarker()) {
+            buffer[offset + layout.digitsLength()] = layout.marker();
+        }
+    }
+
+    private void writeDigits(int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private void ensureCapacity(int length) {
+        if (buffer.length < length) {
+            buffer = new char[Math.max(length, buffer.length * 2)];
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+/**
+ * How an {@link IdGeneratorEngine} picks exponents within a millisecond.
+ * The id layout is the same in all modes, so ids from any mode can be parsed by {@link IdGenerator#parse(String)}.
+ */
+public enum IdGenerationMode {
+    /**
+     * Exponents are picked at random. Ids from the same millisecond are in no particular order.
+     */
+    RANDOM {
+        @Override
+        ExponentAllocator allocator(int maxExponents) {
+            return new StripedExponentAllocator(maxExponents);
+        }
+    },
+    /**
+     * Exponents are handed out in increasing order. Ids from a node are strictly increasing in generation order,
+     * which keeps inserts into B-tree indexes on the id column at the right edge of the tree.
+     * NOTE: Ids carry local time, so this only holds within one UTC offset. When daylight saving ends, local times
+     * repeat and ids generated after the change sort before the ones generated in the hour before it.
+     * Partition-constrained ids skip the exponents between the counter and the matching one, so a millisecond
+     * fits fewer of them than in {@link #RANDOM} mode.
+     */
+    MONOTONIC {
+        @Override
+        ExponentAllocator allocator(int maxExponents) {
+            return new MonotonicExponentAllocator(maxExponents);
+        }
+    },
+    /**
+     * Exponents of a millisecond are walked in a keyed pseudo-random order. Unlike {@link #RANDOM} mode, no slot is
+     * ever probed twice, so the cost of an id does not grow as the millisecond fills up.
+     * Like {@link #MONOTONIC} mode, partition-constrained ids skip over the exponents before the matching one.
+     */
+    PERMUTED {
+        @Override
+        ExponentAllocator allocator(int maxExponents) {
+            return new PermutedExponentAllocator(maxExponents);
+        }
+    };
+
+    abstract ExponentAllocator allocator(int maxExponents);
+}
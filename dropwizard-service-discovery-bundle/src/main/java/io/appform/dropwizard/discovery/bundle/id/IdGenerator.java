@@ -17,110 +17,161 @@
 
 package io.appform.dropwizard.discovery.bundle.id;
 
-import com.github.rholder.retry.RetryException;
-import com.github.rholder.retry.Retryer;
-import com.github.rholder.retry.RetryerBuilder;
-import com.github.rholder.retry.StopStrategies;
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.base.Preconditions;
-import com.google.common.collect.ImmutableList;
 import io.appform.dropwizard.discovery.bundle.id.constraints.IdValidationConstraint;
-import lombok.Data;
-import lombok.extern.slf4j.Slf4j;
-import org.joda.time.DateTime;
-import org.joda.time.format.DateTimeFormat;
-import org.joda.time.format.DateTimeFormatter;
-
-import java.security.SecureRandom;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
+
+import java.io.IOException;
+import java.time.Instant;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.ExecutionException;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Id generation
+ * Id generation.
+ * All generation calls are delegated to a default {@link IdGeneratorEngine}. Use {@link #engine(String)} to get a
+ * separate engine for a busy domain.
+ * Ids use the {@link IdLayout#CLASSIC} layout unless a different one is passed to {@link #initialize(int, IdLayout)}.
  */
-@Slf4j
 public class IdGenerator {
 
-    private static final int MINIMUM_ID_LENGTH = 22;
-
-    private enum IdValidationState {
-        VALID,
-        INVALID_RETRYABLE,
-        INVALID_NON_RETRYABLE
-    }
-
-    private static final class IdInfo {
-        int exponent;
-        long time;
-
-        public IdInfo(int exponent, long time) {
-            this.exponent = exponent;
-            this.time = time;
-        }
-    }
-
-    private static SecureRandom random = new SecureRandom(Long.toBinaryString(System.currentTimeMillis()).getBytes());
-    private static int nodeId;
-    private static DateTimeFormatter formatter = DateTimeFormat.forPattern("yyMMddHHmmssSSS");
-    private static final CollisionChecker collisionChecker = new CollisionChecker();
-    private static List<IdValidationConstraint> globalConstraints = Collections.emptyList();
-    private static Map<String, List<IdValidationConstraint>> domainSpecificConstraints = new HashMap<>();
-    private static final Retryer<GenerationResult> retrier = RetryerBuilder.<GenerationResult>newBuilder()
-            .withStopStrategy(StopStrategies.stopAfterAttempt(512))
-            .retryIfException()
-            .retryIfResult(Objects::isNull)
-            .retryIfResult(result -> result.getState().equals(IdValidationState.INVALID_RETRYABLE))
-            .build();
-    private static final String patternString = "(.*)([0-9]{15})([0-9]{4})([0-9]{3})";
-    private static Pattern pattern = Pattern.compile(patternString);
+    private static final String DEFAULT_ENGINE_NAME = "default";
+    private static final PrefixClaims prefixClaims = new PrefixClaims();
+    private static volatile int nodeId;
+    private static volatile IdGeneratorEngine defaultEngine = new IdGeneratorEngine(
+            0, IdGenerationMode.RANDOM, IdLayout.CLASSIC, prefixClaims.claimant(DEFAULT_ENGINE_NAME));
+    private static final Map<String, IdGeneratorEngine> domainEngines = new ConcurrentHashMap<>();
+    private static final IdParser parser = new IdParser(IdFormatter.DATE_FORMATTER);
+    private static volatile MetricRegistry metricRegistry;
 
     public static void initialize(int node) {
+        defaultEngine.initialize(node);
         nodeId = node;
+        domainEngines.values().forEach(engine -> engine.initialize(node));
     }
 
     public static void cleanUp() {
-        globalConstraints.clear();
-        domainSpecificConstraints.clear();
+        defaultEngine.cleanUp();
+        domainEngines.values().forEach(IdGeneratorEngine::cleanUp);
     }
 
     public static void initialize(
             int node, List<IdValidationConstraint> globalConstraints, Map<String, List<IdValidationConstraint>> domainSpecificConstraints) {
+        defaultEngine.initialize(node, globalConstraints, domainSpecificConstraints);
         nodeId = node;
-        IdGenerator.globalConstraints = globalConstraints != null
-                ? globalConstraints
-                : Collections.emptyList();
-        IdGenerator.domainSpecificConstraints.putAll(domainSpecificConstraints);
+        domainEngines.values().forEach(engine -> engine.initialize(node));
     }
 
-    public static synchronized void registerGlobalConstraints(IdValidationConstraint... constraints) {
-        registerGlobalConstraints(ImmutableList.copyOf(constraints));
+    /**
+     * Initialize with the given node and switch all engines to the given layout.
+     * The default engine and the domain engines are replaced by engines with the new layout, keeping their
+     * constraints and metrics. Engines handed out by {@link #engine(String)} before the switch keep the old layout, so
+     * set the layout at startup.
+     *
+     * @param node   Node id, has to fit in the layout
+     * @param layout Layout for generated ids
+     */
+    public static void initialize(int node, IdLayout layout) {
+        useLayout(node, layout);
+        initialize(node);
+    }
+
+    public static void initialize(
+            int node,
+            IdLayout layout,
+            List<IdValidationConstraint> globalConstraints,
+            Map<String, List<IdValidationConstraint>> domainSpecificConstraints) {
+        useLayout(node, layout);
+        initialize(node, globalConstraints, domainSpecificConstraints);
     }
 
-    public static synchronized void registerGlobalConstraints(List<IdValidationConstraint> constraints) {
-        Preconditions.checkArgument(null != constraints && !constraints.isEmpty());
-        if(null == globalConstraints) {
-            globalConstraints = new ArrayList<>();
+    /**
+     * @return Layout of ids generated by the default engine
+     */
+    public static IdLayout layout() {
+        return defaultEngine.getLayout();
+    }
+
+    private static synchronized void useLayout(int node, IdLayout layout) {
+        Preconditions.checkArgument(null != layout, "Provide an id layout");
+        if (defaultEngine.getLayout() == layout) {
+            return;
+        }
+        defaultEngine = defaultEngine.withLayout(node, layout);
+        domainEngines.replaceAll((domain, engine) -> engine.withLayout(node, layout));
+        if (null != metricRegistry) {
+            registerMetrics(metricRegistry);
         }
-        globalConstraints.addAll(constraints);
     }
 
-    public static synchronized void registerDomainSpecificConstraints(String domain, IdValidationConstraint... validationConstraints) {
-        registerDomainSpecificConstraints(domain, ImmutableList.copyOf(validationConstraints));
+    /**
+     * Publish id generation metrics on the given registry. Covers the default engine, all domain engines and domain
+     * engines created later. Metrics of the default engine are named
+     * io.appform.dropwizard.discovery.bundle.id.IdGenerator.default.[metric], those of domain engines use the domain
+     * name instead of default.
+     *
+     * @param registry Registry to publish metrics on
+     */
+    public static synchronized void registerMetrics(MetricRegistry registry) {
+        Preconditions.checkArgument(null != registry, "Provide a metric registry");
+        metricRegistry = registry;
+        defaultEngine.registerMetrics(registry, DEFAULT_ENGINE_NAME);
+        domainEngines.forEach((domain, engine) -> engine.registerMetrics(registry, domain));
     }
 
-    public static synchronized void registerDomainSpecificConstraints(String domain, List<IdValidationConstraint> validationConstraints) {
-        Preconditions.checkArgument(null != validationConstraints && !validationConstraints.isEmpty());
-        if(!domainSpecificConstraints.containsKey(domain)) {
-            domainSpecificConstraints.put(domain, new ArrayList<>());
+    /**
+     * Get the engine dedicated to the given domain. The engine is created on first use and shares the node id of
+     * the default engine, but has it's own exponent space and constraints.
+     * A prefix can only be used by one engine, the default engine included, as engines sharing a node would otherwise
+     * be able to generate the same id. It belongs to the engine that generates the first id with it.
+     *
+     * @param domain Domain name
+     * @return Engine for the domain
+     */
+    public static IdGeneratorEngine engine(String domain) {
+        return engine(domain, IdGenerationMode.RANDOM);
+    }
+
+    /**
+     * Get the engine dedicated to the given domain, creating it with the given mode on first use.
+     *
+     * @param domain Domain name
+     * @param mode   Generation mode for the engine
+     * @return Engine for the domain
+     * @throws IllegalStateException if the engine for the domain already exists with a different mode
+     */
+    public static IdGeneratorEngine engine(String domain, IdGenerationMode mode) {
+        final IdGeneratorEngine engine = domainEngines.computeIfAbsent(domain, d -> newEngine(d, mode));
+        Preconditions.checkState(engine.getMode() == mode,
+                                 "Engine for domain %s already exists in %s mode", domain, engine.getMode());
+        return engine;
+    }
+
+    private static IdGeneratorEngine newEngine(String domain, IdGenerationMode mode) {
+        final IdGeneratorEngine engine
+                = new IdGeneratorEngine(nodeId, mode, defaultEngine.getLayout(), prefixClaims.claimant(domain));
+        final MetricRegistry registry = metricRegistry;
+        if (null != registry) {
+            engine.registerMetrics(registry, domain);
         }
-        domainSpecificConstraints.get(domain).addAll(validationConstraints);
+        return engine;
+    }
+
+    public static void registerGlobalConstraints(IdValidationConstraint... constraints) {
+        defaultEngine.registerGlobalConstraints(constraints);
+    }
+
+    public static void registerGlobalConstraints(List<IdValidationConstraint> constraints) {
+        defaultEngine.registerGlobalConstraints(constraints);
+    }
+
+    public static void registerDomainSpecificConstraints(String domain, IdValidationConstraint... validationConstraints) {
+        defaultEngine.registerDomainSpecificConstraints(domain, validationConstraints);
+    }
+
+    public static void registerDomainSpecificConstraints(String domain, List<IdValidationConstraint> validationConstraints) {
+        defaultEngine.registerDomainSpecificConstraints(domain, validationConstraints);
     }
 
     /**
@@ -130,15 +181,65 @@ public class IdGenerator {
      * @return Generated Id
      */
     public static Id generate(String prefix) {
-        final IdInfo idInfo = random();
-        DateTime dateTime = new DateTime(idInfo.time);
-        final String id = String.format("%s%s%04d%03d", prefix, formatter.print(dateTime), nodeId, idInfo.exponent);
-        return Id.builder()
-                .id(id)
-                .exponent(idInfo.exponent)
-                .generatedDate(dateTime.toDate())
-                .node(nodeId)
-                .build();
+        return defaultEngine.generate(prefix);
+    }
+
+    /**
+     * Generate a batch of ids with given prefix.
+     * Exponents are reserved in bulk, rolling over to the next millisecond once the current one runs out. This is
+     * a lot cheaper than calling {@link #generate(String)} in a loop.
+     *
+     * @param prefix String prefix with will be used to blindly merge
+     * @param count  Number of ids to generate
+     * @return Generated ids
+     */
+    public static List<Id> generateBatch(String prefix, int count) {
+        return defaultEngine.generateBatch(prefix, count);
+    }
+
+    /**
+     * Generate id with given prefix and append it to the passed builder.
+     * Use this when the id is only needed as part of a bigger key. No intermediate {@link String} or {@link Id}
+     * gets created.
+     *
+     * @param out    Builder to append the id to
+     * @param prefix String prefix with will be used to blindly merge
+     * @return The passed builder
+     */
+    public static StringBuilder generateInto(StringBuilder out, String prefix) {
+        return defaultEngine.generateInto(out, prefix);
+    }
+
+    /**
+     * Generate id with given prefix and append it to the passed {@link Appendable}.
+     *
+     * @param out    Appendable to write the id to
+     * @param prefix String prefix with will be used to blindly merge
+     * @return The passed appendable
+     * @throws IOException if appending to the output fails
+     */
+    public static <T extends Appendable> T generateInto(T out, String prefix) throws IOException {
+        return defaultEngine.generateInto(out, prefix);
+    }
+
+    /**
+     * Generate an id in it's 8 byte packed form. No decimal id gets formatted.
+     *
+     * @return Packed id, see {@link IdCodec}
+     */
+    public static long generatePacked() {
+        return defaultEngine.generatePacked();
+    }
+
+    /**
+     * Generate an id in the given text encoding. No decimal id gets formatted.
+     *
+     * @param prefix   String prefix with will be used to blindly merge
+     * @param encoding Text encoding to use
+     * @return Prefix followed by the encoded id
+     */
+    public static String generateText(String prefix, IdTextEncoding encoding) {
+        return defaultEngine.generateText(prefix, encoding);
     }
 
     /**
@@ -151,7 +252,7 @@ public class IdGenerator {
      * @return
      */
     public static Optional<Id> generateWithConstraints(String prefix, String domain) {
-        return generateWithConstraints(prefix, domainSpecificConstraints.getOrDefault(domain, Collections.emptyList()), true);
+        return defaultEngine.generateWithConstraints(prefix, domain);
     }
 
     /**
@@ -165,7 +266,7 @@ public class IdGenerator {
      * @return Id if it could be generated
      */
     public static Optional<Id> generateWithConstraints(String prefix, String domain, boolean skipGlobal) {
-        return generateWithConstraints(prefix, domainSpecificConstraints.getOrDefault(domain, Collections.emptyList()), skipGlobal);
+        return defaultEngine.generateWithConstraints(prefix, domain, skipGlobal);
     }
 
     /**
@@ -178,7 +279,68 @@ public class IdGenerator {
      * @return Id if it could be generated
      */
     public static Optional<Id> generateWithConstraints(String prefix, final List<IdValidationConstraint> inConstraints) {
-        return generateWithConstraints(prefix, inConstraints, false);
+        return defaultEngine.generateWithConstraints(prefix, inConstraints);
+    }
+
+    /**
+     * Generate id that mathces all passed constraints.
+     * NOTE: There are performance implications for this.
+     * The evaluation of constraints will take it's toll on id generation rates. Tun rests to check speed.
+     * If one of the constraints is a {@link io.appform.dropwizard.discovery.bundle.id.constraints.ConstructibleIdConstraint}
+     * (for example a PartitionValidator), ids are built to satisfy it directly instead of being generated and rejected.
+     *
+     * @param prefix        String prefix
+     * @param inConstraints Constraints that need to be validate.
+     * @param skipGlobal Skip global constrains and use only passed ones
+     * @return Id if it could be generated
+     */
+    public static Optional<Id> generateWithConstraints(String prefix, final List<IdValidationConstraint> inConstraints, boolean skipGlobal) {
+        return defaultEngine.generateWithConstraints(prefix, inConstraints, skipGlobal);
+    }
+
+    /**
+     * Lowest and highest possible ids with the given prefix for a time window, in the current {@link #layout()}.
+     * NOTE: Ids carry local time. Around a daylight saving change, local times repeat or are skipped, so ids from
+     * such an hour are not in time order. Ids with prefixes that start with the given prefix followed by digits
+     * can sort into the range as well.
+     * NOTE: Ids carry the time of the generator's logical clock, not the wall clock. When a millisecond runs out of
+     * exponents, ids get stamped up to {@link Constants#DEFAULT_MAX_TIME_LEAD_MS} ms ahead of the wall clock, and
+     * after the wall clock goes back the stamps hold at the last time handed out till it catches up. A window that
+     * ends at the current time can miss the newest ids. Pad the end of such windows.
+     *
+     * @param prefix Id prefix
+     * @param from   Start of the window, inclusive
+     * @param to     End of the window, inclusive
+     * @return Bounds for ids generated in the window
+     */
+    public static IdRange rangeFor(String prefix, Instant from, Instant to) {
+        return rangeFor(prefix, from, to, 0, layout().maxNodes() - 1);
+    }
+
+    /**
+     * Lowest and highest possible ids with the given prefix generated on the given node in a time window.
+     * As the node comes after the time in an id, the node only narrows the range at the ends. Ids from other nodes
+     * generated inside the window still sort into the range and need to be filtered out, for example with
+     * {@link Id#node()}.
+     *
+     * @param prefix Id prefix
+     * @param from   Start of the window, inclusive
+     * @param to     End of the window, inclusive
+     * @param node   Node that generated the ids
+     * @return Bounds for ids generated in the window
+     */
+    public static IdRange rangeFor(String prefix, Instant from, Instant to, int node) {
+        Preconditions.checkArgument(node >= 0 && node < layout().maxNodes(), "Invalid node %s", node);
+        return rangeFor(prefix, from, to, node, node);
+    }
+
+    private static IdRange rangeFor(String prefix, Instant from, Instant to, int lowestNode, int highestNode) {
+        Preconditions.checkArgument(null != prefix, "Provide a prefix");
+        Preconditions.checkArgument(null != from && null != to && !from.isAfter(to), "Provide a valid time window");
+        final IdLayout layout = layout();
+        final IdFormatter formatter = new IdFormatter(IdFormatter.DATE_FORMATTER, layout);
+        return new IdRange(formatter.format(prefix, from.toEpochMilli(), lowestNode, 0),
+                           formatter.format(prefix, to.toEpochMilli(), highestNode, layout.maxIdsPerMs() - 1));
     }
 
     /**
@@ -188,96 +350,50 @@ public class IdGenerator {
      * @return Id if it could be generated
      */
     public static Optional<Id> parse(final String idString) {
-        if (idString == null
-                || idString.length() < MINIMUM_ID_LENGTH) {
-            return Optional.empty();
-        }
-        try {
-            Matcher matcher = pattern.matcher(idString);
-            if (matcher.find()) {
-                return Optional.of(Id.builder()
-                        .id(idString)
-                        .node(Integer.parseInt(matcher.group(3)))
-                        .exponent(Integer.parseInt(matcher.group(4)))
-                        .generatedDate(formatter.parseDateTime(matcher.group(2)).toDate())
-                        .build());
-            }
-            return Optional.empty();
-        } catch (Exception e) {
-            log.warn("Could not parse idString {}", e.getMessage());
-            return Optional.empty();
-        }
+        return Optional.ofNullable(parser.parse(idString));
     }
 
-    @Data
-    private static class GenerationResult {
-        private final Id id;
-        private final IdValidationState state;
+    /**
+     * Decode an 8 byte packed id
+     *
+     * @param prefix Prefix of the id
+     * @param packed Packed id
+     * @return Id if the packed value is valid
+     */
+    public static Optional<Id> fromPacked(String prefix, long packed) {
+        return Optional.ofNullable(IdCodec.fromPacked(prefix, packed));
     }
+
     /**
-     * Generate id that mathces all passed constraints.
-     * NOTE: There are performance implications for this.
-     * The evaluation of constraints will take it's toll on id generation rates. Tun rests to check speed.
+     * Decode an 8 or 16 byte binary id
      *
-     * @param prefix        String prefix
-     * @param inConstraints Constraints that need to be validate.
-     * @param skipGlobal Skip global constrains and use only passed ones
-     * @return Id if it could be generated
+     * @param prefix Prefix of the id
+     * @param bytes  Binary id
+     * @return Id if the bytes are valid
      */
-    public static Optional<Id> generateWithConstraints(String prefix, final List<IdValidationConstraint> inConstraints, boolean skipGlobal) {
-        try {
-            final GenerationResult generationResult = retrier.call(() -> {
-                Id id = generate(prefix);
-                return new GenerationResult(id, validateId(inConstraints, id, skipGlobal));
-            });
-            return Optional.ofNullable(generationResult.getId());
-        }
-        catch (ExecutionException e) {
-            log.error("Error occurred while generating id with prefix " + prefix, e);
-        }
-        catch (RetryException e) {
-            log.error("Failed to generate id with prefix " + prefix + " after max attempts (512)", e);
-        }
-        return Optional.empty();
-    }
-
-    private static synchronized IdInfo random() {
-        int randomGen;
-        long time;
-        do {
-            time = System.currentTimeMillis();
-            randomGen = random.nextInt(Constants.MAX_ID_PER_MS);
-        } while (!collisionChecker.check(time, randomGen));
-        return new IdInfo(randomGen, time);
-    }
-
-    private static IdValidationState validateId(List<IdValidationConstraint> inConstraints, Id id, boolean skipGlobal) {
-        //First evaluate global constraints
-        final IdValidationConstraint failedGlobalConstraint
-                = skipGlobal || null == globalConstraints
-                ? null
-                : globalConstraints.stream()
-                        .filter(constraint -> !constraint.isValid(id))
-                        .findFirst()
-                        .orElse(null);
-        if(null != failedGlobalConstraint) {
-            return failedGlobalConstraint.failFast()
-                    ? IdValidationState.INVALID_NON_RETRYABLE
-                    : IdValidationState.INVALID_RETRYABLE;
-        }
-        //Evaluate local + domain constraints
-        final IdValidationConstraint failedLocalConstraint
-                = null == inConstraints
-                ? null
-                : inConstraints.stream()
-                .filter(constraint -> !constraint.isValid(id))
-                .findFirst()
-                .orElse(null);
-        if(null != failedLocalConstraint) {
-            return failedLocalConstraint.failFast()
-                    ? IdValidationState.INVALID_NON_RETRYABLE
-                    : IdValidationState.INVALID_RETRYABLE;
-        }
-        return IdValidationState.VALID;
+    public static Optional<Id> fromBytes(String prefix, byte[] bytes) {
+        return Optional.ofNullable(IdCodec.fromBytes(prefix, bytes));
+    }
+
+    /**
+     * Decode a text encoded id
+     *
+     * @param text     Prefix followed by the encoded id
+     * @param encoding Encoding of the id
+     * @return Id if the text is valid
+     */
+    public static Optional<Id> parseText(String text, IdTextEncoding encoding) {
+        return Optional.ofNullable(IdCodec.fromText(text, encoding));
+    }
+
+    /**
+     * Cheap check to see if the given string looks like an id. Only checks the digits and ranges of the date fields,
+     * use {@link #parse(String)} for a full validation.
+     *
+     * @param idString String to check
+     * @return true if the string has a valid id format
+     */
+    public static boolean isValidFormat(CharSequence idString) {
+        return IdParser.isValidFormat(idString);
     }
 }
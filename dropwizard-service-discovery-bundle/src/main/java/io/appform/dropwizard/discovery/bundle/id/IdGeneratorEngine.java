@@ -0,0 +1,586 @@
+/*
+ * Copyright (c) 2016 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import io.appform.dropwizard.discovery.bundle.id.constraints.ConstructibleIdConstraint;
+import io.appform.dropwizard.discovery.bundle.id.constraints.IdValidationConstraint;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * An id generator with it's own exponent space and constraints.
+ * Engines don't contend with each other, so busy domains can be given their own engine to keep them from starving
+ * the others. As every engine tracks collisions on it's own, ids from different engines on the same node are unique
+ * only if the engines are used with different prefixes. Engines handed out by {@link IdGenerator} enforce this, a
+ * prefix can only be used by the first of them that generates an id with it. Engines created directly are not checked,
+ * give them different nodes or prefixes.
+ * The {@link IdGenerationMode} of an engine decides how exponents are picked within a millisecond, the
+ * {@link IdLayout} decides how many nodes and ids per millisecond there can be.
+ * {@link IdGenerator} delegates to a default engine.
+ */
+@Slf4j
+public class IdGeneratorEngine {
+
+    private enum IdValidationState {
+        VALID,
+        INVALID_RETRYABLE,
+        INVALID_NON_RETRYABLE
+    }
+
+    private static final int MAX_ATTEMPTS = 512;
+    //Packed ids have no prefix. They are claimed under a key no text prefix can clash with.
+    private static final String PACKED_PREFIX = "\u0000packed";
+
+    private static final class IdInfo {
+        int exponent;
+        long time;
+
+        public IdInfo(int exponent, long time) {
+            this.exponent = exponent;
+            this.time = time;
+        }
+    }
+
+    private volatile int nodeId;
+    @Getter
+    private final IdGenerationMode mode;
+    @Getter
+    private final IdLayout layout;
+    private final ExponentAllocator exponentAllocator;
+    @Getter
+    private final LogicalClock clock;
+    private final ThreadLocal<IdFormatter> idFormatter;
+    private final ThreadLocal<PartitionedExponentIndex> partitionedExponentIndex;
+    private final ConstraintRegistry constraintRegistry;
+    private final PrefixClaims.Claimant prefixClaimant;
+    private volatile IdGeneratorMetrics metrics;
+
+    public IdGeneratorEngine(int node) {
+        this(node, IdGenerationMode.RANDOM);
+    }
+
+    public IdGeneratorEngine(int node, IdGenerationMode mode) {
+        this(node, mode, new LogicalClock(Constants.DEFAULT_MAX_TIME_LEAD_MS));
+    }
+
+    public IdGeneratorEngine(int node, IdGenerationMode mode, IdLayout layout) {
+        this(node, mode, new LogicalClock(Constants.DEFAULT_MAX_TIME_LEAD_MS), layout);
+    }
+
+    public IdGeneratorEngine(int node, IdGenerationMode mode, LogicalClock clock) {
+        this(node, mode, clock, IdLayout.CLASSIC);
+    }
+
+    public IdGeneratorEngine(int node, IdGenerationMode mode, LogicalClock clock, IdLayout layout) {
+        this(node, mode, clock, layout, new ConstraintRegistry(), null);
+    }
+
+    /**
+     * An engine that can only use prefixes not used by other engines of the given claimant's {@link PrefixClaims}
+     */
+    IdGeneratorEngine(int node, IdGenerationMode mode, IdLayout layout, PrefixClaims.Claimant prefixClaimant) {
+        this(node,
+             mode,
+             new LogicalClock(Constants.DEFAULT_MAX_TIME_LEAD_MS),
+             layout,
+             new ConstraintRegistry(),
+             prefixClaimant);
+    }
+
+    private IdGeneratorEngine(
+            int node,
+            IdGenerationMode mode,
+            LogicalClock clock,
+            IdLayout layout,
+            ConstraintRegistry constraintRegistry,
+            PrefixClaims.Claimant prefixClaimant) {
+        Preconditions.checkArgument(null != mode, "Provide a generation mode");
+        Preconditions.checkArgument(null != clock, "Provide a clock");
+        Preconditions.checkArgument(null != layout, "Provide an id layout");
+        checkNode(node, layout);
+        this.nodeId = node;
+        this.mode = mode;
+        this.layout = layout;
+        this.exponentAllocator = mode.allocator(layout.maxIdsPerMs());
+        this.clock = clock;
+        this.idFormatter = ThreadLocal.withInitial(() -> new IdFormatter(IdFormatter.DATE_FORMATTER, layout));
+        this.partitionedExponentIndex
+                = ThreadLocal.withInitial(() -> new PartitionedExponentIndex(layout.maxIdsPerMs()));
+        this.constraintRegistry = constraintRegistry;
+        this.prefixClaimant = prefixClaimant;
+    }
+
+    /**
+     * A copy of this engine with a different layout and node. The copy shares the clock, constraints and prefixes of
+     * this engine, but has it's own exponent space. Ids of different layouts can not collide.
+     */
+    IdGeneratorEngine withLayout(int node, IdLayout newLayout) {
+        return new IdGeneratorEngine(node, mode, clock, newLayout, constraintRegistry, prefixClaimant);
+    }
+
+    public void initialize(int node) {
+        checkNode(node, layout);
+        nodeId = node;
+    }
+
+    public void cleanUp() {
+        constraintRegistry.clear();
+    }
+
+    public void initialize(
+            int node, List<IdValidationConstraint> globalConstraints, Map<String, List<IdValidationConstraint>> domainSpecificConstraints) {
+        checkNode(node, layout);
+        nodeId = node;
+        constraintRegistry.initialize(globalConstraints, domainSpecificConstraints);
+    }
+
+    /**
+     * Publish metrics for this engine on the given registry. Metric names start with
+     * io.appform.dropwizard.discovery.bundle.id.IdGenerator.[name].
+     *
+     * @param metricRegistry Registry to publish metrics on
+     * @param name           Name of the engine in metric names
+     */
+    public void registerMetrics(MetricRegistry metricRegistry, String name) {
+        Preconditions.checkArgument(null != metricRegistry, "Provide a metric registry");
+        metrics = new IdGeneratorMetrics(metricRegistry, name, clock);
+    }
+
+    public void registerGlobalConstraints(IdValidationConstraint... constraints) {
+        registerGlobalConstraints(ImmutableList.copyOf(constraints));
+    }
+
+    public void registerGlobalConstraints(List<IdValidationConstraint> constraints) {
+        Preconditions.checkArgument(null != constraints && !constraints.isEmpty());
+        constraintRegistry.registerGlobal(constraints);
+    }
+
+    public void registerDomainSpecificConstraints(String domain, IdValidationConstraint... validationConstraints) {
+        registerDomainSpecificConstraints(domain, ImmutableList.copyOf(validationConstraints));
+    }
+
+    public void registerDomainSpecificConstraints(String domain, List<IdValidationConstraint> validationConstraints) {
+        Preconditions.checkArgument(null != validationConstraints && !validationConstraints.isEmpty());
+        constraintRegistry.registerDomain(domain, validationConstraints);
+    }
+
+    /**
+     * Generate id with given prefix
+     *
+     * @param prefix String prefix with will be used to blindly merge
+     * @return Generated Id
+     * @throws IllegalStateException if the prefix is used by another engine of {@link IdGenerator}
+     */
+    public Id generate(String prefix) {
+        claimPrefix(prefix);
+        final IdGeneratorMetrics engineMetrics = metrics;
+        final long start = null != engineMetrics ? System.nanoTime() : 0L;
+        final int node = nodeId;
+        final IdInfo idInfo = random();
+        final String id = idFormatter.get().format(prefix, idInfo.time, node, idInfo.exponent);
+        final Id generated = new Id(id, idInfo.time, node, idInfo.exponent);
+        recordGenerated(engineMetrics, start);
+        return generated;
+    }
+
+    /**
+     * Generate a batch of ids with given prefix.
+     * Exponents are reserved in bulk, rolling over to the next millisecond once the current one runs out. This is
+     * a lot cheaper than calling {@link #generate(String)} in a loop.
+     *
+     * @param prefix String prefix with will be used to blindly merge
+     * @param count  Number of ids to generate
+     * @return Generated ids
+     * @throws IllegalStateException if the prefix is used by another engine of {@link IdGenerator}
+     */
+    public List<Id> generateBatch(String prefix, int count) {
+        Preconditions.checkArgument(count > 0, "Provide a non-zero positive count");
+        claimPrefix(prefix);
+        final IdGeneratorMetrics engineMetrics = metrics;
+        final long start = null != engineMetrics ? System.nanoTime() : 0L;
+        final List<Id> ids = new ArrayList<>(count);
+        final int[] exponents = new int[Math.min(count, layout.maxIdsPerMs())];
+        final IdFormatter batchFormatter = idFormatter.get();
+        final int node = nodeId;
+        long time = clock.now();
+        while (ids.size() < count) {
+            final int claimed = exponentAllocator.allocate(
+                    time, exponents, 0, Math.min(count - ids.size(), exponents.length));
+            for (int i = 0; i < claimed; i++) {
+                final String id = batchFormatter.format(prefix, time, node, exponents[i]);
+                ids.add(new Id(id, time, node, exponents[i]));
+            }
+            if (ids.size() < count) {
+                time = clock.next(time);
+            }
+        }
+        if (null != engineMetrics) {
+            engineMetrics.generatedBatch(start, count);
+        }
+        return ids;
+    }
+
+    /**
+     * Generate id with given prefix and append it to the passed builder.
+     * Use this when the id is only needed as part of a bigger key. No intermediate {@link String} or {@link Id}
+     * gets created.
+     *
+     * @param out    Builder to append the id to
+     * @param prefix String prefix with will be used to blindly merge
+     * @return The passed builder
+     * @throws IllegalStateException if the prefix is used by another engine of {@link IdGenerator}
+     */
+    public StringBuilder generateInto(StringBuilder out, String prefix) {
+        claimPrefix(prefix);
+        final IdGeneratorMetrics engineMetrics = metrics;
+        final long start = null != engineMetrics ? System.nanoTime() : 0L;
+        final IdInfo idInfo = random();
+        idFormatter.get().formatTo(out, prefix, idInfo.time, nodeId, idInfo.exponent);
+        recordGenerated(engineMetrics, start);
+        return out;
+    }
+
+    /**
+     * Generate id with given prefix and append it to the passed {@link Appendable}.
+     *
+     * @param out    Appendable to write the id to
+     * @param prefix String prefix with will be used to blindly merge
+     * @return The passed appendable
+     * @throws IOException if appending to the output fails
+     * @throws IllegalStateException if the prefix is used by another engine of {@link IdGenerator}
+     */
+    public <T extends Appendable> T generateInto(T out, String prefix) throws IOException {
+        claimPrefix(prefix);
+        final IdGeneratorMetrics engineMetrics = metrics;
+        final long start = null != engineMetrics ? System.nanoTime() : 0L;
+        final IdInfo idInfo = random();
+        idFormatter.get().formatTo(out, prefix, idInfo.time, nodeId, idInfo.exponent);
+        recordGenerated(engineMetrics, start);
+        return out;
+    }
+
+    /**
+     * Generate an id in it's 8 byte packed form. No decimal id gets formatted.
+     *
+     * @return Packed id, see {@link IdCodec}
+     * @throws IllegalStateException if the engine does not use the classic layout, or if packed ids (which have no
+     *                               prefix) are generated by another engine of {@link IdGenerator}
+     */
+    public long generatePacked() {
+        checkPackable();
+        claimPrefix(PACKED_PREFIX);
+        final IdGeneratorMetrics engineMetrics = metrics;
+        final long start = null != engineMetrics ? System.nanoTime() : 0L;
+        final IdInfo idInfo = random();
+        final long packed = IdCodec.pack(idInfo.time, nodeId, idInfo.exponent);
+        recordGenerated(engineMetrics, start);
+        return packed;
+    }
+
+    /**
+     * Generate an id in the given text encoding. No decimal id gets formatted.
+     *
+     * @param prefix   String prefix with will be used to blindly merge
+     * @param encoding Text encoding to use
+     * @return Prefix followed by the encoded id
+     * @throws IllegalStateException if the engine does not use the classic layout, or if the prefix is used by
+     *                               another engine of {@link IdGenerator}
+     */
+    public String generateText(String prefix, IdTextEncoding encoding) {
+        checkPackable();
+        claimPrefix(prefix);
+        final IdGeneratorMetrics engineMetrics = metrics;
+        final long start = null != engineMetrics ? System.nanoTime() : 0L;
+        final IdInfo idInfo = random();
+        final String text = encoding.encode(prefix, IdCodec.pack(idInfo.time, nodeId, idInfo.exponent));
+        recordGenerated(engineMetrics, start);
+        return text;
+    }
+
+    /**
+     * Generate id that mathces all passed constraints.
+     * NOTE: There are performance implications for this.
+     * The evaluation of constraints will take it's toll on id generation rates. Tun rests to check speed.
+     *
+     * @param prefix        String prefix
+     * @param domain Domain for constraint selection
+     * @return
+     */
+    public Optional<Id> generateWithConstraints(String prefix, String domain) {
+        return generateWithConstraints(prefix, domain, true);
+    }
+
+    /**
+     * Generate id that mathces all passed constraints.
+     * NOTE: There are performance implications for this.
+     * The evaluation of constraints will take it's toll on id generation rates. Tun rests to check speed.
+     *
+     * @param prefix        String prefix
+     * @param domain Domain for constraint selection
+     * @param skipGlobal Skip global constrains and use only passed ones
+     * @return Id if it could be generated
+     */
+    public Optional<Id> generateWithConstraints(String prefix, String domain, boolean skipGlobal) {
+        final ConstraintRegistry.Snapshot constraints = constraintRegistry.snapshot();
+        return generateWithConstraints(prefix,
+                                       constraints.domain(domain),
+                                       skipGlobal ? ConstraintPipeline.EMPTY : constraints.global(),
+                                       domain);
+    }
+
+    /**
+     * Generate id that mathces all passed constraints.
+     * NOTE: There are performance implications for this.
+     * The evaluation of constraints will take it's toll on id generation rates. Tun rests to check speed.
+     *
+     * @param prefix        String prefix
+     * @param inConstraints Constraints that need to be validate.
+     * @return Id if it could be generated
+     */
+    public Optional<Id> generateWithConstraints(String prefix, final List<IdValidationConstraint> inConstraints) {
+        return generateWithConstraints(prefix, inConstraints, false);
+    }
+
+    /**
+     * Generate id that mathces all passed constraints.
+     * NOTE: There are performance implications for this.
+     * The evaluation of constraints will take it's toll on id generation rates. Tun rests to check speed.
+     * If one of the constraints is a {@link ConstructibleIdConstraint} (for example a PartitionValidator), ids are
+     * built to satisfy it directly instead of being generated and rejected.
+     *
+     * @param prefix        String prefix
+     * @param inConstraints Constraints that need to be validate.
+     * @param skipGlobal Skip global constrains and use only passed ones
+     * @return Id if it could be generated
+     */
+    public Optional<Id> generateWithConstraints(String prefix, final List<IdValidationConstraint> inConstraints, boolean skipGlobal) {
+        return generateWithConstraints(prefix,
+                                       ConstraintPipeline.fixed(inConstraints),
+                                       skipGlobal ? ConstraintPipeline.EMPTY : constraintRegistry.snapshot().global(),
+                                       null);
+    }
+
+    private Optional<Id> generateWithConstraints(
+            String prefix,
+            ConstraintPipeline inConstraints,
+            ConstraintPipeline globalConstraints,
+            String domain) {
+        claimPrefix(prefix);
+        final ConstructibleIdConstraint constructibleConstraint = null != inConstraints.constructible()
+                ? inConstraints.constructible()
+                : globalConstraints.constructible();
+        if (null != constructibleConstraint) {
+            return Optional.ofNullable(
+                    generateConstructed(prefix, constructibleConstraint, inConstraints, globalConstraints, domain));
+        }
+        RuntimeException lastError = null;
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            final Id id;
+            final IdValidationState state;
+            try {
+                id = generate(prefix);
+                state = validateId(inConstraints, globalConstraints, id);
+            }
+            catch (RuntimeException e) {
+                lastError = e;
+                continue;
+            }
+            recordValidation(state, domain);
+            if (state == IdValidationState.VALID) {
+                recordConstraintAttempts(attempt);
+                return Optional.of(id);
+            }
+            if (state == IdValidationState.INVALID_NON_RETRYABLE) {
+                recordConstraintAttempts(attempt);
+                return Optional.empty();
+            }
+        }
+        if (null != lastError) {
+            log.error("Failed to generate id with prefix " + prefix + " after max attempts (" + MAX_ATTEMPTS + ")", lastError);
+        }
+        else {
+            log.error("Failed to generate id with prefix {} after max attempts ({})", prefix, MAX_ATTEMPTS);
+        }
+        recordConstraintAttempts(MAX_ATTEMPTS);
+        recordGaveUp();
+        return Optional.empty();
+    }
+
+    /**
+     * Builds ids that satisfy the constructible constraint directly and validates the remaining constraints on them.
+     * Every rejected id, every millisecond without a matching exponent and every exception thrown by the partitioner
+     * or a constraint counts as an attempt.
+     */
+    private Id generateConstructed(
+            String prefix,
+            ConstructibleIdConstraint constructibleConstraint,
+            ConstraintPipeline inConstraints,
+            ConstraintPipeline globalConstraints,
+            String domain) {
+        final PartitionedExponentIndex index = partitionedExponentIndex.get();
+        final IdFormatter constructedFormatter = idFormatter.get();
+        final int node = nodeId;
+        long time = clock.now();
+        int attempts = 0;
+        RuntimeException lastError = null;
+        while (attempts < MAX_ATTEMPTS) {
+            final Id id;
+            final IdValidationState state;
+            try {
+                final int exponent = index.claim(prefix,
+                                                 time,
+                                                 node,
+                                                 constructibleConstraint.partitioner(),
+                                                 constructibleConstraint.partition(),
+                                                 exponentAllocator,
+                                                 constructedFormatter);
+                if (exponent < 0) {
+                    //Only borrow ahead of the wall clock if the millisecond is really used up, not on a partition miss
+                    time = exponentAllocator.exhausted(time)
+                           ? clock.next(time)
+                           : clock.after(time);
+                    attempts++;
+                    continue;
+                }
+                id = new Id(constructedFormatter.format(prefix, time, node, exponent), time, node, exponent);
+                state = validateId(inConstraints, globalConstraints, id);
+            }
+            catch (RuntimeException e) {
+                lastError = e;
+                attempts++;
+                continue;
+            }
+            recordValidation(state, domain);
+            if (state == IdValidationState.VALID) {
+                recordConstraintAttempts(attempts + 1);
+                recordConstructed();
+                return id;
+            }
+            if (state == IdValidationState.INVALID_NON_RETRYABLE) {
+                recordConstraintAttempts(attempts + 1);
+                return null;
+            }
+            attempts++;
+        }
+        if (null != lastError) {
+            log.error("Failed to generate id with prefix " + prefix + " after max attempts (" + MAX_ATTEMPTS + ")", lastError);
+        }
+        else {
+            log.error("Failed to generate id with prefix {} after max attempts ({})", prefix, MAX_ATTEMPTS);
+        }
+        recordConstraintAttempts(attempts);
+        recordGaveUp();
+        return null;
+    }
+
+    private void claimPrefix(String prefix) {
+        if (null != prefixClaimant) {
+            prefixClaimant.claim(prefix);
+        }
+    }
+
+    private static void recordGenerated(IdGeneratorMetrics engineMetrics, long start) {
+        if (null != engineMetrics) {
+            engineMetrics.generated(start);
+        }
+    }
+
+    private void recordConstructed() {
+        final IdGeneratorMetrics engineMetrics = metrics;
+        if (null != engineMetrics) {
+            engineMetrics.constructed();
+        }
+    }
+
+    private void recordValidation(IdValidationState state, String domain) {
+        final IdGeneratorMetrics engineMetrics = metrics;
+        if (null == engineMetrics || state == IdValidationState.VALID) {
+            return;
+        }
+        engineMetrics.constraintFailure(domain);
+        if (state == IdValidationState.INVALID_NON_RETRYABLE) {
+            engineMetrics.failFastRejection();
+        }
+    }
+
+    private void recordConstraintAttempts(int attempts) {
+        final IdGeneratorMetrics engineMetrics = metrics;
+        if (null != engineMetrics) {
+            engineMetrics.constraintAttempts(attempts);
+        }
+    }
+
+    private void recordGaveUp() {
+        final IdGeneratorMetrics engineMetrics = metrics;
+        if (null != engineMetrics) {
+            engineMetrics.gaveUp();
+        }
+    }
+
+    private IdInfo random() {
+        long time = clock.now();
+        int exponent = exponentAllocator.allocate(time);
+        int attempts = 1;
+        while (exponent < 0) {
+            time = clock.next(time);
+            exponent = exponentAllocator.allocate(time);
+            attempts++;
+        }
+        final IdGeneratorMetrics engineMetrics = metrics;
+        if (null != engineMetrics) {
+            engineMetrics.allocationAttempts(attempts);
+        }
+        return new IdInfo(exponent, time);
+    }
+
+    private IdValidationState validateId(ConstraintPipeline inConstraints, ConstraintPipeline globalConstraints, Id id) {
+        //First evaluate global constraints
+        final IdValidationConstraint failedGlobalConstraint = globalConstraints.firstRejection(id);
+        if(null != failedGlobalConstraint) {
+            return failedGlobalConstraint.failFast()
+                    ? IdValidationState.INVALID_NON_RETRYABLE
+                    : IdValidationState.INVALID_RETRYABLE;
+        }
+        //Evaluate local + domain constraints
+        final IdValidationConstraint failedLocalConstraint = inConstraints.firstRejection(id);
+        if(null != failedLocalConstraint) {
+            return failedLocalConstraint.failFast()
+                    ? IdValidationState.INVALID_NON_RETRYABLE
+                    : IdValidationState.INVALID_RETRYABLE;
+        }
+        return IdValidationState.VALID;
+    }
+
+    private void checkPackable() {
+        Preconditions.checkState(IdLayout.CLASSIC == layout, "Only ids with the classic layout can be packed");
+    }
+
+    private static void checkNode(int node, IdLayout layout) {
+        Preconditions.checkArgument(node >= 0 && node < layout.maxNodes(),
+                                    "Node %s is out of range for the %s layout", node, layout);
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metrics for an {@link IdGeneratorEngine}. All metrics are named io.appform...IdGenerator.[engine].[metric].
+ * Every id is counted on the ids meter, which is backed by striped adders. Timers and histograms keep the default
+ * bounded reservoir, which takes a lock on every update. Those updated once per id only get 1 in
+ * {@value #SAMPLE_EVERY} ids, so id generating threads rarely meet on that lock. Their counts are sampled counts,
+ * use the ids meter for totals.
+ */
+class IdGeneratorMetrics {
+    static final String UNNAMED_DOMAIN = "unnamed";
+    private static final int SAMPLE_EVERY = 64;
+
+    private final MetricRegistry metricRegistry;
+    private final String engineName;
+    private final Timer generate;
+    private final Timer generateBatch;
+    private final Meter ids;
+    private final Histogram allocationAttempts;
+    private final Histogram constraintAttempts;
+    private final Counter failFastRejections;
+    private final Counter gaveUp;
+    private final Map<String, Counter> constraintFailures = new ConcurrentHashMap<>();
+
+    IdGeneratorMetrics(MetricRegistry metricRegistry, String engineName, LogicalClock clock) {
+        this.metricRegistry = metricRegistry;
+        this.engineName = engineName;
+        this.generate = metricRegistry.timer(metricName("generate"));
+        this.generateBatch = metricRegistry.timer(metricName("generateBatch"));
+        this.ids = metricRegistry.meter(metricName("ids"));
+        this.allocationAttempts = metricRegistry.histogram(metricName("allocationAttempts"));
+        this.constraintAttempts = metricRegistry.histogram(metricName("constraintAttempts"));
+        this.failFastRejections = metricRegistry.counter(metricName("failFastRejections"));
+        this.gaveUp = metricRegistry.counter(metricName("gaveUp"));
+        registerGauge("clock.overflows", clock::getOverflows);
+        registerGauge("clock.regressions", clock::getRegressions);
+        registerGauge("clock.waits", clock::getWaits);
+        registerGauge("clock.waitNanos", clock::getWaitNanos);
+    }
+
+    /**
+     * Record a single id handed out by one of the generate calls. The call time is sampled.
+     */
+    void generated(long startNanos) {
+        ids.mark();
+        if (sampled()) {
+            generate.update(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Record a batch of ids handed out by one generate call
+     */
+    void generatedBatch(long startNanos, int count) {
+        generateBatch.update(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        ids.mark(count);
+    }
+
+    /**
+     * Record an id built to match a constraint. It's generation time is part of the constraint evaluation.
+     */
+    void constructed() {
+        ids.mark();
+    }
+
+    /**
+     * Record the allocation attempts for an id. Sampled.
+     */
+    void allocationAttempts(int attempts) {
+        if (sampled()) {
+            allocationAttempts.update(attempts);
+        }
+    }
+
+    void constraintAttempts(int attempts) {
+        constraintAttempts.update(attempts);
+    }
+
+    void constraintFailure(String domain) {
+        constraintFailures.computeIfAbsent(null == domain ? UNNAMED_DOMAIN : domain,
+                                           d -> metricRegistry.counter(metricName("constraintFailures", d)))
+                .inc();
+    }
+
+    void failFastRejection() {
+        failFastRejections.inc();
+    }
+
+    void gaveUp() {
+        gaveUp.inc();
+    }
+
+    private void registerGauge(String metric, Gauge<Long> gauge) {
+        final String name = metricName(metric);
+        metricRegistry.remove(name);
+        metricRegistry.register(name, gauge);
+    }
+
+    private static boolean sampled() {
+        return ThreadLocalRandom.current().nextInt(SAMPLE_EVERY) == 0;
+    }
+
+    private String metricName(String... names) {
+        return MetricRegistry.name(MetricRegistry.name(IdGenerator.class, engineName), names);
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+/**
+ * Layout of the part of an id that follows the prefix: yyMMddHHmmssSSS, then the node and the exponent as fixed
+ * width decimals. Layouts after the classic one end in a marker letter naming the layout, so the layout of an id can
+ * always be told from the id itself and ids of different layouts never collide.
+ */
+public enum IdLayout {
+    /**
+     * 4 digit node, 3 digit exponent: 10,000 nodes, 1,000 ids per millisecond on a node.
+     */
+    CLASSIC(4, 3, (char) 0),
+    /**
+     * 5 digit node, 6 digit exponent and a trailing W: 100,000 nodes, 1,000,000 ids per millisecond on a node.
+     */
+    WIDE(5, 6, 'W');
+
+    private final int nodeLength;
+    private final int exponentLength;
+    private final char marker;
+    private final int maxNodes;
+    private final int maxIdsPerMs;
+
+    IdLayout(int nodeLength, int exponentLength, char marker) {
+        this.nodeLength = nodeLength;
+        this.exponentLength = exponentLength;
+        this.marker = marker;
+        this.maxNodes = pow10(nodeLength);
+        this.maxIdsPerMs = pow10(exponentLength);
+    }
+
+    /**
+     * @return Number of node ids that fit in the layout
+     */
+    public int maxNodes() {
+        return maxNodes;
+    }
+
+    /**
+     * @return Number of ids a node can generate in a millisecond
+     */
+    public int maxIdsPerMs() {
+        return maxIdsPerMs;
+    }
+
+    /**
+     * @param id Id to check
+     * @return Layout of the id, going by the marker at it's end. Ids without a marker are {@link #CLASSIC}.
+     */
+    public static IdLayout of(CharSequence id) {
+        if (null != id && id.length() > 0 && id.charAt(id.length() - 1) == WIDE.marker) {
+            return WIDE;
+        }
+        return CLASSIC;
+    }
+
+    int nodeLength() {
+        return nodeLength;
+    }
+
+    int exponentLength() {
+        return exponentLength;
+    }
+
+    /**
+     * @return Number of digits after the prefix
+     */
+    int digitsLength() {
+        return IdFormatter.DATE_LENGTH + nodeLength + exponentLength;
+    }
+
+    /**
+     * @return Number of characters after the prefix, including the marker
+     */
+    int suffixLength() {
+        return digitsLength() + (hasMarker() ? 1 : 0);
+    }
+
+    boolean hasMarker() {
+        return 0 != marker;
+    }
+
+    char marker() {
+        return marker;
+    }
+
+    boolean isValid(int node, int exponent) {
+        return node >= 0 && node < maxNodes && exponent >= 0 && exponent < maxIdsPerMs;
+    }
+
+    private static int pow10(int digits) {
+        int value = 1;
+        for (int i = 0; i < digits; i++) {
+            value *= 10;
+        }
+        return value;
+    }
+}
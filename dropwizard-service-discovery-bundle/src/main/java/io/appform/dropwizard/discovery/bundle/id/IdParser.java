@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import lombok.extern.slf4j.Slf4j;
+import org.joda.time.DateTimeZone;
+import org.joda.time.format.DateTimeFormatter;
+
+/**
+ * Fixed offset parser for ids. Reads the trailing yyMMddHHmmssSSS + node + exponent digits in place. The layout of
+ * the id is picked up from it's end, see {@link IdLayout#of(CharSequence)}.
+ * Converting the local date to epoch millis needs the time zone rules, so the start of the last seen minute is
+ * cached and only a minute change goes through the (slow) Joda formatter.
+ */
+@Slf4j
+class IdParser {
+    static final long INVALID_TIME = Long.MIN_VALUE;
+
+    private static final class MinuteStart {
+        private final long minute;
+        private final DateTimeZone zone;
+        private final long millis;
+
+        private MinuteStart(long minute, DateTimeZone zone, long millis) {
+            this.minute = minute;
+            this.zone = zone;
+            this.millis = millis;
+        }
+    }
+
+    private final DateTimeFormatter dateFormatter;
+    private volatile MinuteStart lastMinute = new MinuteStart(-1, null, 0);
+
+    IdParser(DateTimeFormatter dateFormatter) {
+        this.dateFormatter = dateFormatter;
+    }
+
+    /**
+     * Parse the id
+     *
+     * @param idString Id to parse
+     * @return Parsed id, or null if the string is not a valid id
+     */
+    Id parse(String idString) {
+        final IdLayout layout = IdLayout.of(idString);
+        if (!isValidFormat(idString, layout)) {
+            return null;
+        }
+        final int base = idString.length() - layout.suffixLength();
+        final long epochMillis = epochMillis(idString, base);
+        if (INVALID_TIME == epochMillis) {
+            return null;
+        }
+        return new Id(idString, epochMillis, node(idString, base, layout), exponent(idString, base, layout));
+    }
+
+    /**
+     * Checks that the id ends in digits and that the date fields are in range. The date is not checked against
+     * the calendar (for example 30th February), {@link #parse(String)} does that.
+     */
+    static boolean isValidFormat(CharSequence idString) {
+        return isValidFormat(idString, IdLayout.of(idString));
+    }
+
+    static boolean isValidFormat(CharSequence idString, IdLayout layout) {
+        if (null == idString || idString.length() < layout.suffixLength()) {
+            return false;
+        }
+        final int base = idString.length() - layout.suffixLength();
+        for (int i = base; i < base + layout.digitsLength(); i++) {
+            final char ch = idString.charAt(i);
+            if (ch < '0' || ch > '9') {
+                return false;
+            }
+        }
+        final int month = digits(idString, base + 2, 2);
+        final int day = digits(idString, base + 4, 2);
+        return month >= 1 && month <= 12
+                && day >= 1 && day <= 31
+                && digits(idString, base + 6, 2) < 24
+                && digits(idString, base + 8, 2) < 60
+                && digits(idString, base + 10, 2) < 60;
+    }
+
+    /**
+     * @return Epoch millis for the yyMMddHHmmssSSS digits starting at base,
+     * or {@link #INVALID_TIME} if it is not a valid local time
+     */
+    long epochMillis(CharSequence idString, int base) {
+        final long minute = digits(idString, base, 6) * 10_000L + digits(idString, base + 6, 4);
+        final DateTimeZone zone = DateTimeZone.getDefault();
+        MinuteStart minuteStart = lastMinute;
+        if (minuteStart.minute != minute || minuteStart.zone != zone) {
+            try {
+                final String minuteString = idString.subSequence(base, base + 10) + "00000";
+                minuteStart = new MinuteStart(minute, zone, dateFormatter.parseMillis(minuteString));
+            }
+            catch (IllegalArgumentException e) {
+                log.debug("Could not parse date from idString {}: {}", idString, e.getMessage());
+                return INVALID_TIME;
+            }
+            lastMinute = minuteStart;
+        }
+        return minuteStart.millis
+                + digits(idString, base + 10, 2) * 1000L
+                + digits(idString, base + 12, 3);
+    }
+
+    static int node(CharSequence idString, int base, IdLayout layout) {
+        return digits(idString, base + IdFormatter.DATE_LENGTH, layout.nodeLength());
+    }
+
+    static int exponent(CharSequence idString, int base, IdLayout layout) {
+        return digits(idString, base + IdFormatter.DATE_LENGTH + layout.nodeLength(), layout.exponentLength());
+    }
+
+    static int digits(CharSequence idString, int offset, int length) {
+        int value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            value = value * 10 + (idString.charAt(i) - '0');
+        }
+        return value;
+    }
+}
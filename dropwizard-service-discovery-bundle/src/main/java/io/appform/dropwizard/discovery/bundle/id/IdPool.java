@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps a bounded buffer of pre-generated ids per prefix, refilled by a background thread.
+ * Taking an id is a single poll on the buffer, so id generation cost moves off the request thread.
+ * NOTE: Pooled ids carry the time at which they were generated, not the time at which they were taken.
+ */
+@Slf4j
+public class IdPool {
+
+    private final class PrefixPool {
+        private final String prefix;
+        private final ArrayBlockingQueue<Id> ids;
+        private final Queue<CompletableFuture<Id>> waiters = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean refillScheduled = new AtomicBoolean();
+        private final Meter underflows;
+
+        private PrefixPool(String prefix) {
+            this.prefix = prefix;
+            this.ids = new ArrayBlockingQueue<>(configuration.getHighWatermark());
+            this.underflows = null != metricRegistry
+                    ? metricRegistry.meter(metricName(prefix, "underflow"))
+                    : new Meter();
+            if (null != metricRegistry) {
+                final String depthMetric = metricName(prefix, "depth");
+                metricRegistry.remove(depthMetric);
+                metricRegistry.register(depthMetric, (Gauge<Integer>) ids::size);
+            }
+        }
+
+        private Id take() {
+            final Id id = ids.poll();
+            if (null == id) {
+                underflows.mark();
+                scheduleRefill(this);
+            }
+            else if (ids.size() < configuration.getLowWatermark()) {
+                scheduleRefill(this);
+            }
+            return id;
+        }
+
+        private void refill() {
+            refillScheduled.set(false);
+            serveWaiters();
+            final int required = configuration.getHighWatermark() - ids.size();
+            if (required > 0) {
+                IdGenerator.generateBatch(prefix, required).forEach(ids::offer);
+            }
+        }
+
+        private void serveWaiters() {
+            CompletableFuture<Id> waiter;
+            while (null != (waiter = waiters.poll())) {
+                waiter.complete(IdGenerator.generate(prefix));
+            }
+        }
+    }
+
+    private final IdPoolConfiguration configuration;
+    private final MetricRegistry metricRegistry;
+    private final Map<String, PrefixPool> pools = new ConcurrentHashMap<>();
+    private volatile ExecutorService refiller;
+
+    /**
+     * @param configuration  Pool configuration
+     * @param metricRegistry Registry for depth and underflow metrics. Metrics are not published if this is null.
+     */
+    public IdPool(IdPoolConfiguration configuration, MetricRegistry metricRegistry) {
+        Preconditions.checkArgument(null != configuration, "Provide a non null pool configuration");
+        Preconditions.checkArgument(configuration.getLowWatermark() < configuration.getHighWatermark(),
+                                    "Low watermark needs to be less than high watermark");
+        this.configuration = configuration;
+        this.metricRegistry = metricRegistry;
+    }
+
+    public void start() {
+        refiller = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                                                             .setNameFormat("id-pool-refiller-%d")
+                                                             .setDaemon(true)
+                                                             .build());
+        configuration.getPrefixes()
+                .forEach(prefix -> scheduleRefill(pool(prefix)));
+        log.info("Id pool started for prefixes {}", configuration.getPrefixes());
+    }
+
+    public void stop() throws InterruptedException {
+        if (null != refiller) {
+            refiller.shutdownNow();
+            refiller.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        pools.values().forEach(pool -> {
+            pool.refillScheduled.set(false);
+            pool.serveWaiters();
+        });
+        log.info("Id pool stopped");
+    }
+
+    /**
+     * Take an id from the pool without blocking.
+     *
+     * @param prefix String prefix
+     * @return A pre-generated id, or empty if the pool for this prefix has run dry
+     */
+    public Optional<Id> take(String prefix) {
+        return Optional.ofNullable(pool(prefix).take());
+    }
+
+    /**
+     * Take an id from the pool. If the pool for this prefix has run dry, the returned future is completed by the
+     * refill thread. If the pool has not been started or has been stopped, the id is generated on the calling thread.
+     *
+     * @param prefix String prefix
+     * @return Future for the id
+     */
+    public CompletableFuture<Id> takeAsync(String prefix) {
+        final PrefixPool pool = pool(prefix);
+        final Id id = pool.take();
+        if (null != id) {
+            return CompletableFuture.completedFuture(id);
+        }
+        final CompletableFuture<Id> waiter = new CompletableFuture<>();
+        pool.waiters.add(waiter);
+        if (!scheduleRefill(pool)) {
+            pool.serveWaiters();
+        }
+        return waiter;
+    }
+
+    /**
+     * @param prefix String prefix
+     * @return Number of ready ids for the prefix
+     */
+    public int depth(String prefix) {
+        final PrefixPool pool = pools.get(prefix);
+        return null == pool ? 0 : pool.ids.size();
+    }
+
+    private PrefixPool pool(String prefix) {
+        return pools.computeIfAbsent(prefix, PrefixPool::new);
+    }
+
+    /**
+     * @return true if a refill is pending for the pool, false if there is no refill thread to run one
+     */
+    private boolean scheduleRefill(PrefixPool pool) {
+        final ExecutorService executor = refiller;
+        if (null == executor || executor.isShutdown()) {
+            return false;
+        }
+        if (!pool.refillScheduled.compareAndSet(false, true)) {
+            return true;
+        }
+        try {
+            executor.execute(pool::refill);
+            return true;
+        }
+        catch (RejectedExecutionException e) {
+            pool.refillScheduled.set(false);
+            log.debug("Refill for prefix {} rejected as pool is shutting down", pool.prefix);
+            return false;
+        }
+    }
+
+    private static String metricName(String prefix, String metric) {
+        return MetricRegistry.name(IdPool.class, prefix, metric);
+    }
+}
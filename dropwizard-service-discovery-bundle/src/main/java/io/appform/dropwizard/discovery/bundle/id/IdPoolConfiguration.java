@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Configuration for {@link IdPool}
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdPoolConfiguration {
+    /**
+     * Prefixes for which pools are filled up on startup. Pools for other prefixes get created on first use.
+     */
+    @NotNull
+    @Builder.Default
+    private Set<String> prefixes = Collections.emptySet();
+
+    /**
+     * A refill is triggered once the number of ready ids for a prefix falls below this
+     */
+    @Min(1)
+    @Builder.Default
+    private int lowWatermark = 1_000;
+
+    /**
+     * Pools get filled up to this many ids
+     */
+    @Min(1)
+    @Builder.Default
+    private int highWatermark = 10_000;
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import lombok.Data;
+
+/**
+ * Lowest and highest possible ids for a time window. Both bounds are inclusive.
+ * As ids sort by time first, every id generated with the prefix in the window sorts between the two bounds, so the
+ * window can be read with a single range scan on the id.
+ */
+@Data
+public class IdRange {
+    private final String lowest;
+    private final String highest;
+
+    /**
+     * @param id Id to check
+     * @return true if the id sorts between the bounds
+     */
+    public boolean contains(String id) {
+        return lowest.compareTo(id) <= 0 && highest.compareTo(id) >= 0;
+    }
+}
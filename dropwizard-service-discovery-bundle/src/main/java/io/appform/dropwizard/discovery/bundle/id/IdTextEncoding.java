@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import java.util.Arrays;
+
+/**
+ * Fixed width text forms of a packed id (see {@link IdCodec#pack(long, int, int)}).
+ * Both alphabets are in ASCII order and the width is fixed, so encoded ids with the same prefix sort in the same
+ * order as the decimal ones.
+ */
+public enum IdTextEncoding {
+    /**
+     * Digits, upper case and lower case letters. 11 characters, case sensitive.
+     */
+    BASE62("0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz", 11, false),
+    /**
+     * Crockford's base32. 13 characters. Decoding ignores case and reads I and L as 1 and O as 0.
+     */
+    CROCKFORD_BASE32("0123456789ABCDEFGHJKMNPQRSTVWXYZ", 13, true);
+
+    private final char[] alphabet;
+    private final int width;
+    private final byte[] values = new byte[128];
+
+    IdTextEncoding(String alphabet, int width, boolean crockford) {
+        this.alphabet = alphabet.toCharArray();
+        this.width = width;
+        Arrays.fill(values, (byte) -1);
+        for (int i = 0; i < this.alphabet.length; i++) {
+            values[this.alphabet[i]] = (byte) i;
+            if (crockford) {
+                values[Character.toLowerCase(this.alphabet[i])] = (byte) i;
+            }
+        }
+        if (crockford) {
+            values['I'] = values['i'] = values['L'] = values['l'] = 1;
+            values['O'] = values['o'] = 0;
+        }
+    }
+
+    /**
+     * @return Number of characters taken by an encoded id, not counting the prefix
+     */
+    public int width() {
+        return width;
+    }
+
+    String encode(String prefix, long packed) {
+        final int prefixLength = prefix.length();
+        final char[] chars = new char[prefixLength + width];
+        prefix.getChars(0, prefixLength, chars, 0);
+        final long radix = alphabet.length;
+        long value = packed;
+        for (int i = chars.length - 1; i >= prefixLength; i--) {
+            chars[i] = alphabet[(int) Long.remainderUnsigned(value, radix)];
+            value = Long.divideUnsigned(value, radix);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * @return Packed id read from the last {@link #width()} characters of the text
+     * @throws NumberFormatException if the text is too short, has characters outside the alphabet or does not fit
+     *                               in 64 bits
+     */
+    long decode(CharSequence text) {
+        final int offset = text.length() - width;
+        if (offset < 0) {
+            throw new NumberFormatException("Encoded id is too short: " + text);
+        }
+        final long radix = alphabet.length;
+        final long maxBeforeMultiply = Long.divideUnsigned(-1L, radix);
+        long value = 0;
+        for (int i = offset; i < text.length(); i++) {
+            final char ch = text.charAt(i);
+            final int digit = ch < values.length ? values[ch] : -1;
+            if (digit < 0 || Long.compareUnsigned(value, maxBeforeMultiply) > 0) {
+                throw new NumberFormatException("Invalid encoded id: " + text);
+            }
+            final long shifted = value * radix;
+            value = shifted + digit;
+            if (Long.compareUnsigned(value, shifted) < 0) {
+                throw new NumberFormatException("Invalid encoded id: " + text);
+            }
+        }
+        return value;
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Monotonic millisecond clock for id generation.
+ * The clock follows the wall clock but never goes back. If the wall clock jumps back (for example after an NTP
+ * correction), the clock holds at the last millisecond it handed out till the wall clock catches up. Once all
+ * exponents of a millisecond are used up, the clock borrows the next millisecond, as long as it stays within the
+ * allowed lead over the wall clock. Beyond that, callers are parked till the wall clock catches up instead of
+ * spinning on it.
+ */
+public class LogicalClock {
+    //Threads racing across a millisecond boundary can record wall times out of order. Don't count those.
+    private static final long REGRESSION_TOLERANCE_MS = 1;
+
+    private final long maxLeadMs;
+    private final AtomicLong current = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicLong lastWallTime = new AtomicLong(0);
+
+    private final LongAdder overflows = new LongAdder();
+    private final LongAdder regressions = new LongAdder();
+    private final LongAdder waits = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+
+    public LogicalClock(long maxLeadMs) {
+        Preconditions.checkArgument(maxLeadMs >= 0, "Lead over the wall clock can't be negative");
+        this.maxLeadMs = maxLeadMs;
+    }
+
+    /**
+     * Current millisecond. Never less than any millisecond handed out before.
+     */
+    public long now() {
+        final long wallTime = wallTime();
+        while (true) {
+            final long time = current.get();
+            if (wallTime <= time) {
+                return time;
+            }
+            if (current.compareAndSet(time, wallTime)) {
+                return wallTime;
+            }
+        }
+    }
+
+    /**
+     * Millisecond to move to once the given millisecond has run out of exponents.
+     * Borrows the next millisecond if it is within the allowed lead, otherwise parks till it is.
+     *
+     * @param exhausted Millisecond that has run out of exponents
+     * @return A millisecond later than the exhausted one
+     */
+    public long next(long exhausted) {
+        final long target = exhausted + 1;
+        while (true) {
+            final long time = current.get();
+            if (time >= target) {
+                return time;
+            }
+            final long wallTime = wallTime();
+            if (wallTime >= target) {
+                if (current.compareAndSet(time, wallTime)) {
+                    return wallTime;
+                }
+                continue;
+            }
+            if (target - wallTime <= maxLeadMs) {
+                if (current.compareAndSet(time, target)) {
+                    overflows.increment();
+                    return target;
+                }
+                continue;
+            }
+            park(target - maxLeadMs - wallTime);
+        }
+    }
+
+    /**
+     * Millisecond to move to when the given millisecond is of no more use for reasons other than running out of
+     * exponents, for example when it has no exponent for a wanted partition. Never borrows ahead of the wall clock,
+     * waits for the wall clock to pass the given millisecond instead.
+     *
+     * @param time Millisecond to move past
+     * @return A millisecond later than the given one
+     */
+    public long after(long time) {
+        final long target = time + 1;
+        while (true) {
+            final long current = this.current.get();
+            if (current >= target) {
+                return current;
+            }
+            final long wallTime = wallTime();
+            if (wallTime >= target) {
+                if (this.current.compareAndSet(current, wallTime)) {
+                    return wallTime;
+                }
+                continue;
+            }
+            park(target - wallTime);
+        }
+    }
+
+    /**
+     * Number of times a millisecond was borrowed ahead of the wall clock.
+     */
+    public long getOverflows() {
+        return overflows.sum();
+    }
+
+    /**
+     * Number of times the wall clock was seen going back.
+     */
+    public long getRegressions() {
+        return regressions.sum();
+    }
+
+    /**
+     * Number of times a caller had to wait for the wall clock.
+     */
+    public long getWaits() {
+        return waits.sum();
+    }
+
+    /**
+     * Total time spent waiting for the wall clock, in nanoseconds.
+     */
+    public long getWaitNanos() {
+        return waitNanos.sum();
+    }
+
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    private long wallTime() {
+        final long wallTime = currentTimeMillis();
+        final long lastSeen = lastWallTime.getAndSet(wallTime);
+        if (lastSeen - wallTime > REGRESSION_TOLERANCE_MS) {
+            regressions.increment();
+        }
+        return wallTime;
+    }
+
+    private void park(long millis) {
+        final long start = System.nanoTime();
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(Math.max(1, millis)));
+        waits.increment();
+        waitNanos.add(System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out exponents of a millisecond in increasing order, starting from zero.
+ * The millisecond being served and the next free exponent are packed into a single long, so every claim is one CAS
+ * and claims are totally ordered. As the date, node and exponent are fixed width, ids generated from one node with
+ * this allocator sort (as strings and numerically) in the order they were generated, as long as the UTC offset does
+ * not change. Ids carry local time, so ids generated after daylight saving ends sort before the ones generated in the
+ * hour before it.
+ * The allocator never moves back in time. Claims for an older millisecond fail till the clock catches up.
+ * A specific exponent can only be claimed if it is ahead of the counter, the exponents skipped over are lost.
+ */
+public class MonotonicExponentAllocator implements ExponentAllocator {
+    private static final int COUNTER_BITS = 20;
+    private static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+
+    private final int maxExponents;
+    private final AtomicLong state = new AtomicLong(pack(Long.MIN_VALUE >> COUNTER_BITS, 0));
+
+    public MonotonicExponentAllocator(int maxExponents) {
+        Preconditions.checkArgument(maxExponents > 0 && maxExponents <= COUNTER_MASK,
+                                    "Exponent count must be between 1 and %s", COUNTER_MASK);
+        this.maxExponents = maxExponents;
+    }
+
+    @Override
+    public int allocate(long time) {
+        while (true) {
+            final long current = state.get();
+            final int next = nextExponent(current, time);
+            if (next < 0 || next >= maxExponents) {
+                return -1;
+            }
+            if (state.compareAndSet(current, pack(time, next + 1))) {
+                return next;
+            }
+        }
+    }
+
+    @Override
+    public boolean allocate(long time, int exponent) {
+        if (exponent < 0 || exponent >= maxExponents) {
+            return false;
+        }
+        while (true) {
+            final long current = state.get();
+            final int next = nextExponent(current, time);
+            if (next < 0 || next > exponent) {
+                return false;
+            }
+            if (state.compareAndSet(current, pack(time, exponent + 1))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Claims a contiguous run of exponents with a single CAS.
+     */
+    @Override
+    public int allocate(long time, int[] exponents, int offset, int count) {
+        while (true) {
+            final long current = state.get();
+            final int next = nextExponent(current, time);
+            if (next < 0 || next >= maxExponents) {
+                return 0;
+            }
+            final int claimed = Math.min(count, maxExponents - next);
+            if (state.compareAndSet(current, pack(time, next + claimed))) {
+                for (int i = 0; i < claimed; i++) {
+                    exponents[offset + i] = next + i;
+                }
+                return claimed;
+            }
+        }
+    }
+
+    @Override
+    public boolean exhausted(long time) {
+        final int next = nextExponent(state.get(), time);
+        return next < 0 || next >= maxExponents;
+    }
+
+    /**
+     * Next free exponent for the given time, or -1 if the allocator has already moved past it.
+     */
+    private static int nextExponent(long current, long time) {
+        final long currentTime = current >> COUNTER_BITS;
+        if (currentTime > time) {
+            return -1;
+        }
+        return currentTime == time
+               ? (int) (current & COUNTER_MASK)
+               : 0;
+    }
+
+    private static long pack(long time, int counter) {
+        return (time << COUNTER_BITS) | counter;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import com.google.common.base.Strings;
+import com.google.common.primitives.Ints;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * The last node id claimed by a process, kept in a small local properties file so that the process can ask for the
+ * same id after a restart. The lease is only a hint, ZooKeeper still decides who owns an id.
+ * Problems with the file are logged and otherwise ignored, the process then simply gets a new id.
+ */
+@Slf4j
+class NodeIdLease {
+    static final int NO_LEASE = -1;
+
+    private static final String NODE = "node";
+    private static final String PROCESS = "process";
+    private static final String LAYOUT = "layout";
+    private static final String CLAIMED_AT = "claimedAt";
+
+    private final Path file;
+    private final String processName;
+    private final IdLayout layout;
+
+    NodeIdLease(Path file, String processName, IdLayout layout) {
+        this.file = file;
+        this.processName = processName;
+        this.layout = layout;
+    }
+
+    /**
+     * @return Leased node id, or {@link #NO_LEASE} if there is no lease for this process and layout
+     */
+    int read() {
+        if (!Files.isRegularFile(file)) {
+            return NO_LEASE;
+        }
+        final Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Could not read node id lease from {}: {}", file, e.getMessage());
+            return NO_LEASE;
+        }
+        if (!processName.equals(properties.getProperty(PROCESS))
+                || !layout.name().equals(properties.getProperty(LAYOUT))) {
+            return NO_LEASE;
+        }
+        final Integer node = Ints.tryParse(Strings.nullToEmpty(properties.getProperty(NODE)));
+        return null != node && node >= 0 && node < layout.maxNodes()
+               ? node
+               : NO_LEASE;
+    }
+
+    /**
+     * Replace the lease with the given node id. The file is replaced atomically where the file system allows it.
+     */
+    void write(int node) {
+        final Properties properties = new Properties();
+        properties.setProperty(NODE, Integer.toString(node));
+        properties.setProperty(PROCESS, processName);
+        properties.setProperty(LAYOUT, layout.name());
+        properties.setProperty(CLAIMED_AT, Long.toString(System.currentTimeMillis()));
+        final Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            if (null != file.getParent()) {
+                Files.createDirectories(file.getParent());
+            }
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                properties.store(writer, "Node id lease");
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            log.warn("Could not write node id lease to {}: {}", file, e.getMessage());
+        }
+    }
+}
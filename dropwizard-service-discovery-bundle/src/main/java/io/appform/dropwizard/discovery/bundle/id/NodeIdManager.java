@@ -17,39 +17,101 @@
 
 package io.appform.dropwizard.discovery.bundle.id;
 
-import com.github.rholder.retry.RetryException;
-import com.github.rholder.retry.Retryer;
-import com.github.rholder.retry.RetryerBuilder;
-import com.github.rholder.retry.StopStrategies;
-import com.google.common.base.Predicates;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.primitives.Ints;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.zookeeper.CreateMode;
 import org.apache.zookeeper.KeeperException;
 
+import java.nio.file.Path;
 import java.security.SecureRandom;
-import java.util.concurrent.ExecutionException;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Created by santanu on 2/5/16.
+ * Claims a node id for the process as an ephemeral znode.
+ * Every attempt reads the ids already claimed with a single getChildren call and tries to create a free one picked
+ * at random, so an attempt costs two round trips no matter how full the id space is. An attempt only fails if
+ * another process claims the same id between the two calls. Only such collisions count towards the bound on attempts.
+ * ZooKeeper errors are retried as long as the retry policy of the curator framework allows, with it's backoff.
+ * With a lease file, the claimed id is saved locally and asked for first on the next start. The old id is only
+ * available again once the ephemeral znode of the previous run is gone, otherwise a new id gets allocated.
  */
 @Slf4j
 public class NodeIdManager {
+    private static final int MAX_COLLISIONS = 16;
+    private static final int NO_FREE_NODE = -1;
 
     private final CuratorFramework curatorFramework;
     private final SecureRandom secureRandom;
     private final CuratorPathUtils pathUtils;
+    private final IdLayout layout;
+    private final Timer allocationTime;
+    private final Histogram allocationAttempts;
+    private final Counter leaseReclaims;
+    private final NodeIdLease lease;
 
     @Getter
     private int node;
 
     public NodeIdManager(CuratorFramework curatorFramework, String processName) {
+        this(curatorFramework, processName, IdLayout.CLASSIC);
+    }
+
+    public NodeIdManager(CuratorFramework curatorFramework, String processName, IdLayout layout) {
+        this(curatorFramework, processName, layout, null);
+    }
+
+    public NodeIdManager(
+            CuratorFramework curatorFramework, String processName, IdLayout layout, MetricRegistry metricRegistry) {
+        this(curatorFramework, processName, layout, metricRegistry, null);
+    }
+
+    /**
+     * Node ids are picked from the range of the given layout. All layouts share the same node paths, so processes
+     * with different layouts never pick the same node.
+     *
+     * @param metricRegistry Registry for allocation metrics. Metrics are not published if this is null.
+     * @param leaseFile      Local file to keep the claimed node id in across restarts. Not used if this is null.
+     */
+    public NodeIdManager(
+            CuratorFramework curatorFramework,
+            String processName,
+            IdLayout layout,
+            MetricRegistry metricRegistry,
+            Path leaseFile) {
         this.curatorFramework = curatorFramework;
         this.secureRandom = new SecureRandom(Long.toBinaryString(System.currentTimeMillis()).getBytes());
         this.pathUtils = new CuratorPathUtils(processName);
+        this.layout = layout;
+        this.allocationTime = null != metricRegistry
+                ? metricRegistry.timer(MetricRegistry.name(NodeIdManager.class, "allocation"))
+                : null;
+        this.allocationAttempts = null != metricRegistry
+                ? metricRegistry.histogram(MetricRegistry.name(NodeIdManager.class, "allocationAttempts"))
+                : null;
+        this.leaseReclaims = null != metricRegistry
+                ? metricRegistry.counter(MetricRegistry.name(NodeIdManager.class, "leaseReclaims"))
+                : null;
+        this.lease = null != leaseFile
+                ? new NodeIdLease(leaseFile, processName, layout)
+                : null;
     }
 
+    /**
+     * Claim a node id.
+     *
+     * @return The claimed node id
+     * @throws IllegalStateException if all node ids are taken, if claims collided {@value #MAX_COLLISIONS} times or
+     *                               if the retry policy of the curator framework gave up on ZooKeeper errors
+     */
     public int fixNodeId() {
         try {
             log.info("Waiting for curator to start");
@@ -58,32 +120,130 @@ public class NodeIdManager {
         } catch (InterruptedException e) {
             log.error("Wait for curator start interrupted", e);
         }
-        Retryer<Boolean> retryer = RetryerBuilder.<Boolean>newBuilder()
-                .retryIfResult(Predicates.equalTo(false))
-                .retryIfException()
-                .withStopStrategy(StopStrategies.neverStop())
-                .build();
-        try {
-            retryer.call(() -> {
-                node = secureRandom.nextInt(Constants.MAX_NUM_NODES);
-                final String path = pathUtils.path(node);
-                try {
-                    curatorFramework.create()
-                            .creatingParentContainersIfNeeded()
-                            .withMode(CreateMode.EPHEMERAL)
-                            .forPath(path);
-                } catch (KeeperException.NodeExistsException e) {
-                    log.warn("Collision on node {}, will retry with new node.", node);
-                    return false;
+        final long start = System.nanoTime();
+        if (reclaimLeasedNode()) {
+            recordAllocation(start, 1);
+            return node;
+        }
+        int attempt = 0;
+        int collisions = 0;
+        int errors = 0;
+        while (collisions < MAX_COLLISIONS) {
+            attempt++;
+            final int candidate;
+            final boolean claimed;
+            try {
+                candidate = pickFreeNode();
+                if (NO_FREE_NODE == candidate) {
+                    break;
+                }
+                claimed = claim(candidate);
+            } catch (Exception e) {
+                log.warn("Error claiming node id in attempt " + attempt + ", will retry if the retry policy allows", e);
+                if (!retryAfterError(errors++, start)) {
+                    recordAllocation(start, attempt);
+                    throw new IllegalStateException("Could not claim a node id after " + errors + " errors", e);
                 }
-                log.info("Node will be set to node id {}", node);
-                return true;
-            });
-        } catch (RetryException e) {
-            log.error("Error creating node", e);
-        } catch (ExecutionException e) {
-            log.error("Execution exception while creating node", e);
+                continue;
+            }
+            if (claimed) {
+                node = candidate;
+                if (null != lease) {
+                    lease.write(node);
+                }
+                recordAllocation(start, attempt);
+                log.info("Node will be set to node id {} after {} attempt(s)", node, attempt);
+                return node;
+            }
+            collisions++;
+            log.warn("Collision on node {}, will retry with new node.", candidate);
+        }
+        recordAllocation(start, attempt);
+        throw new IllegalStateException("Could not claim a free node id out of " + layout.maxNodes()
+                                                + " in " + attempt + " attempts");
+    }
+
+    /**
+     * Waits as long as the retry policy of the curator framework asks for after an error
+     *
+     * @return true if the policy allows another retry
+     */
+    private boolean retryAfterError(int retryCount, long start) {
+        return curatorFramework.getZookeeperClient()
+                .getRetryPolicy()
+                .allowRetry(retryCount,
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                            (time, unit) -> unit.sleep(time));
+    }
+
+    private boolean reclaimLeasedNode() {
+        if (null == lease) {
+            return false;
+        }
+        final int leased = lease.read();
+        if (NodeIdLease.NO_LEASE == leased) {
+            return false;
+        }
+        try {
+            if (!claim(leased)) {
+                log.info("Leased node id {} is taken, will allocate a new one", leased);
+                return false;
+            }
+        } catch (Exception e) {
+            log.warn("Error reclaiming leased node id " + leased + ", will allocate a new one", e);
+            return false;
+        }
+        node = leased;
+        lease.write(node);
+        if (null != leaseReclaims) {
+            leaseReclaims.inc();
+        }
+        log.info("Node will be set to leased node id {}", node);
+        return true;
+    }
+
+    /**
+     * @return A random node id that is not claimed at the moment, or {@link #NO_FREE_NODE} if there is none
+     */
+    private int pickFreeNode() throws Exception {
+        final BitSet taken = new BitSet(layout.maxNodes());
+        for (String child : claimedNodes()) {
+            final Integer claimed = Ints.tryParse(child);
+            if (null != claimed && claimed >= 0 && claimed < layout.maxNodes()) {
+                taken.set(claimed);
+            }
+        }
+        int candidate = taken.nextClearBit(secureRandom.nextInt(layout.maxNodes()));
+        if (candidate >= layout.maxNodes()) {
+            candidate = taken.nextClearBit(0);
+        }
+        return candidate < layout.maxNodes() ? candidate : NO_FREE_NODE;
+    }
+
+    private List<String> claimedNodes() throws Exception {
+        try {
+            return curatorFramework.getChildren().forPath(pathUtils.parentPath());
+        } catch (KeeperException.NoNodeException e) {
+            return Collections.emptyList();
+        }
+    }
+
+    private boolean claim(int candidate) throws Exception {
+        try {
+            curatorFramework.create()
+                    .creatingParentContainersIfNeeded()
+                    .withMode(CreateMode.EPHEMERAL)
+                    .forPath(pathUtils.path(candidate));
+            return true;
+        } catch (KeeperException.NodeExistsException e) {
+            return false;
+        }
+    }
+
+    private void recordAllocation(long start, int attempts) {
+        if (null != allocationTime) {
+            allocationTime.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            allocationAttempts.update(attempts);
         }
-        return node;
     }
 }
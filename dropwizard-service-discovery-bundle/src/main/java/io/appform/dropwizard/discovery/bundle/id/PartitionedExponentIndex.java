@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import io.appform.dropwizard.discovery.bundle.id.constraints.impl.KeyPartitioner;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Finds exponents in a millisecond which make an id land on a given partition.
+ * Exponents are scanned lazily, starting from a random point. Every scanned exponent is bucketed by it's partition,
+ * so a millisecond is scanned at most once no matter how many ids are requested for it. This makes the cost of a
+ * partition-constrained id independent of the number of partitions once a millisecond is busy.
+ * Buckets are kept by scan position, and grow with the scan, so an index only takes as much memory as the busiest
+ * millisecond it has seen needed.
+ * The index covers one prefix and partitioner at a time. Instances are NOT thread safe. Use one per thread.
+ */
+class PartitionedExponentIndex {
+    private static final int NONE = -1;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final int maxExponents;
+    private int[] nextInPartition;
+    private int[] partitionHeads = new int[16];
+
+    private String prefix;
+    private KeyPartitioner partitioner;
+    private int node;
+    private long time = Long.MIN_VALUE;
+    private int scanStart;
+    private int scanned;
+
+    PartitionedExponentIndex(int maxExponents) {
+        this.maxExponents = maxExponents;
+        this.nextInPartition = new int[Math.min(maxExponents, INITIAL_CAPACITY)];
+    }
+
+    /**
+     * Claim an exponent for which the id lands on the given partition.
+     *
+     * @return The claimed exponent, or -1 if there is no such free exponent left in this millisecond
+     */
+    int claim(
+            String prefix,
+            long time,
+            int node,
+            KeyPartitioner partitioner,
+            int partition,
+            ExponentAllocator allocator,
+            IdFormatter formatter) {
+        if (time != this.time
+                || node != this.node
+                || partitioner != this.partitioner
+                || !prefix.equals(this.prefix)) {
+            reset(prefix, time, node, partitioner);
+        }
+        while (true) {
+            int exponent = pop(partition);
+            if (NONE == exponent) {
+                exponent = scan(partition, formatter);
+            }
+            if (NONE == exponent) {
+                return NONE;
+            }
+            if (allocator.allocate(time, exponent)) {
+                return exponent;
+            }
+        }
+    }
+
+    private int scan(int partition, IdFormatter formatter) {
+        while (scanned < maxExponents) {
+            final int position = scanned++;
+            final int exponent = exponentAt(position);
+            final String id = formatter.format(prefix, time, node, exponent);
+            final int exponentPartition = partitioner.partition(new Id(id, time, node, exponent));
+            if (exponentPartition == partition) {
+                return exponent;
+            }
+            push(exponentPartition, position);
+        }
+        return NONE;
+    }
+
+    private int pop(int partition) {
+        if (partition < 0 || partition >= partitionHeads.length) {
+            return NONE;
+        }
+        final int position = partitionHeads[partition];
+        if (NONE == position) {
+            return NONE;
+        }
+        partitionHeads[partition] = nextInPartition[position];
+        return exponentAt(position);
+    }
+
+    private void push(int partition, int position) {
+        if (partition < 0) {
+            return;
+        }
+        if (partition >= partitionHeads.length) {
+            final int oldLength = partitionHeads.length;
+            partitionHeads = Arrays.copyOf(partitionHeads, Math.max(partition + 1, oldLength * 2));
+            Arrays.fill(partitionHeads, oldLength, partitionHeads.length, NONE);
+        }
+        if (position >= nextInPartition.length) {
+            nextInPartition = Arrays.copyOf(nextInPartition,
+                                            Math.min(maxExponents, Math.max(position + 1, nextInPartition.length * 2)));
+        }
+        nextInPartition[position] = partitionHeads[partition];
+        partitionHeads[partition] = position;
+    }
+
+    private int exponentAt(int position) {
+        return (scanStart + position) % maxExponents;
+    }
+
+    private void reset(String prefix, long time, int node, KeyPartitioner partitioner) {
+        this.prefix = prefix;
+        this.time = time;
+        this.node = node;
+        this.partitioner = partitioner;
+        this.scanStart = ThreadLocalRandom.current().nextInt(maxExponents);
+        this.scanned = 0;
+        Arrays.fill(partitionHeads, NONE);
+    }
+}
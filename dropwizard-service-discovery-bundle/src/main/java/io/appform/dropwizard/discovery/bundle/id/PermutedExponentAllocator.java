@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import com.google.common.base.Preconditions;
+
+import java.security.SecureRandom;
+
+/**
+ * Hands out exponents of a millisecond in a keyed pseudo-random order.
+ * A per-millisecond counter (see {@link MonotonicExponentAllocator}) is mapped through a small Feistel network keyed
+ * by a secret drawn once at startup and the millisecond. A Feistel network is a permutation, and cycle walking keeps
+ * it within the exponent range, so every counter value maps to a different exponent. No exponent is ever drawn
+ * twice and no collision tracking or retry is needed, while the order stays hard to guess without the secret.
+ * NOTE: The order is obscured, not cryptographically protected.
+ */
+public class PermutedExponentAllocator implements ExponentAllocator {
+    private static final int ROUNDS = 4;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final int maxExponents;
+    private final int halfBits;
+    private final int halfMask;
+    private final long secret;
+    private final MonotonicExponentAllocator counter;
+
+    public PermutedExponentAllocator(int maxExponents) {
+        this(maxExponents, new SecureRandom().nextLong());
+    }
+
+    PermutedExponentAllocator(int maxExponents, long secret) {
+        Preconditions.checkArgument(maxExponents > 1, "Provide an exponent count greater than one");
+        this.maxExponents = maxExponents;
+        final int bits = 32 - Integer.numberOfLeadingZeros(maxExponents - 1);
+        this.halfBits = (bits + 1) / 2;
+        this.halfMask = (1 << halfBits) - 1;
+        this.secret = secret;
+        this.counter = new MonotonicExponentAllocator(maxExponents);
+    }
+
+    @Override
+    public int allocate(long time) {
+        final int position = counter.allocate(time);
+        return position < 0
+               ? -1
+               : permute(key(time), position);
+    }
+
+    @Override
+    public boolean allocate(long time, int exponent) {
+        if (exponent < 0 || exponent >= maxExponents) {
+            return false;
+        }
+        return counter.allocate(time, inverse(key(time), exponent));
+    }
+
+    @Override
+    public int allocate(long time, int[] exponents, int offset, int count) {
+        final int claimed = counter.allocate(time, exponents, offset, count);
+        final long key = key(time);
+        for (int i = offset; i < offset + claimed; i++) {
+            exponents[i] = permute(key, exponents[i]);
+        }
+        return claimed;
+    }
+
+    @Override
+    public boolean exhausted(long time) {
+        return counter.exhausted(time);
+    }
+
+    int permute(long key, int position) {
+        int value = position;
+        do {
+            value = encrypt(key, value);
+        } while (value >= maxExponents);
+        return value;
+    }
+
+    int inverse(long key, int exponent) {
+        int value = exponent;
+        do {
+            value = decrypt(key, value);
+        } while (value >= maxExponents);
+        return value;
+    }
+
+    long key(long time) {
+        long z = secret + time * GOLDEN_GAMMA;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private int encrypt(long key, int value) {
+        int left = value >>> halfBits;
+        int right = value & halfMask;
+        for (int round = 0; round < ROUNDS; round++) {
+            final int next = left ^ round(right, roundKey(key, round));
+            left = right;
+            right = next;
+        }
+        return (left << halfBits) | right;
+    }
+
+    private int decrypt(long key, int value) {
+        int left = value >>> halfBits;
+        int right = value & halfMask;
+        for (int round = ROUNDS - 1; round >= 0; round--) {
+            final int previous = right ^ round(left, roundKey(key, round));
+            right = left;
+            left = previous;
+        }
+        return (left << halfBits) | right;
+    }
+
+    private static int roundKey(long key, int round) {
+        return (int) (key >>> (round * 16));
+    }
+
+    private int round(int half, int roundKey) {
+        int h = (half ^ roundKey) * 0x9E3779B1;
+        h ^= h >>> 15;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return h & halfMask;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Prefixes in use by engines that share a node id.
+ * Such engines share the id space but each tracks it's own exponents, so two of them using the same prefix could mint
+ * the same id. A prefix belongs to the first engine that generates an id with it, other engines can't use it.
+ */
+class PrefixClaims {
+    private final Map<String, Claimant> owners = new ConcurrentHashMap<>();
+
+    /**
+     * @param name Name of the engine, used in errors
+     * @return A claimant for one engine. Copies of an engine with a different layout use the same claimant.
+     */
+    Claimant claimant(String name) {
+        return new Claimant(name);
+    }
+
+    final class Claimant {
+        private final String name;
+
+        private Claimant(String name) {
+            this.name = name;
+        }
+
+        /**
+         * @throws IllegalStateException if the prefix is in use by another engine
+         */
+        void claim(String prefix) {
+            //Ids are formatted with "null" for a null prefix
+            final String key = String.valueOf(prefix);
+            Claimant owner = owners.get(key);
+            if (this == owner) {
+                return;
+            }
+            if (null == owner) {
+                owner = owners.putIfAbsent(key, this);
+                if (null == owner) {
+                    return;
+                }
+            }
+            Preconditions.checkState(this == owner,
+                                     "Prefix %s is already used by id generator engine %s", prefix, owner.name);
+        }
+    }
+}
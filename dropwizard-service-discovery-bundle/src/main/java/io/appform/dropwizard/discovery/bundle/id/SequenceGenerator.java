@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Strings;
+import com.google.common.primitives.Longs;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.data.Stat;
+
+import java.io.Closeable;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Named numeric sequences shared by all nodes of a service.
+ * Every sequence is a counter in a znode at /id-sequences/{service}/{sequence}, so services sharing a ZooKeeper
+ * ensemble don't share sequences of the same name. A node leases a block of numbers at a time by moving the counter
+ * forward with a compare-and-set on the znode version, and then hands the numbers out locally. ZooKeeper sees one
+ * write per block, not one per number. The next block is leased in the background once half of the current block
+ * is used up.
+ * Numbers are unique across nodes and increasing on a node. Across nodes they are only ordered block by block, and
+ * the unused part of a node's blocks is lost when it shuts down.
+ */
+@Slf4j
+public class SequenceGenerator implements Closeable {
+    private static final String ROOT = "id-sequences";
+    private static final long FIRST_VALUE = 1;
+
+    private final CuratorFramework curatorFramework;
+    private final String serviceName;
+    private final int blockSize;
+    private final Map<String, Sequence> sequences = new ConcurrentHashMap<>();
+    private final ExecutorService prefetcher = Executors.newSingleThreadExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "id-sequence-prefetcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Timer leaseTime;
+    private final Counter leaseConflicts;
+
+    /**
+     * @param curatorFramework Started curator to keep the counters in
+     * @param serviceName      Service the sequences belong to
+     * @param blockSize        Numbers leased at a time
+     * @param metricRegistry   Registry for lease metrics. Metrics are not published if this is null.
+     */
+    public SequenceGenerator(
+            CuratorFramework curatorFramework,
+            String serviceName,
+            int blockSize,
+            MetricRegistry metricRegistry) {
+        Preconditions.checkArgument(null != curatorFramework, "Provide a curator framework");
+        Preconditions.checkArgument(!Strings.isNullOrEmpty(serviceName) && serviceName.indexOf('/') < 0,
+                                    "Invalid service name %s", serviceName);
+        Preconditions.checkArgument(blockSize > 0, "Provide a non-zero positive block size");
+        this.curatorFramework = curatorFramework;
+        this.serviceName = serviceName;
+        this.blockSize = blockSize;
+        this.leaseTime = null != metricRegistry
+                ? metricRegistry.timer(MetricRegistry.name(SequenceGenerator.class, "lease"))
+                : null;
+        this.leaseConflicts = null != metricRegistry
+                ? metricRegistry.counter(MetricRegistry.name(SequenceGenerator.class, "leaseConflicts"))
+                : null;
+    }
+
+    /**
+     * Get the next number of a sequence. Sequences are created on first use and start at 1.
+     *
+     * @param sequence Name of the sequence
+     * @return Next number
+     * @throws IllegalStateException if a block could not be leased from ZooKeeper
+     */
+    public long next(String sequence) {
+        return sequences.computeIfAbsent(sequence, this::newSequence).next();
+    }
+
+    /**
+     * Stops background leasing. Sequences stay usable after this, blocks are then leased on the calling thread once
+     * the current one runs out.
+     */
+    @Override
+    public void close() {
+        prefetcher.shutdownNow();
+    }
+
+    private Sequence newSequence(String sequence) {
+        Preconditions.checkArgument(!Strings.isNullOrEmpty(sequence) && sequence.indexOf('/') < 0,
+                                    "Invalid sequence name %s", sequence);
+        return new Sequence(String.format("/%s/%s/%s", ROOT, serviceName, sequence));
+    }
+
+    /**
+     * Moves the counter in the znode forward by a block with a compare-and-set, retrying on conflicts
+     *
+     * @return The leased block
+     */
+    private Block lease(String path) throws Exception {
+        final long start = System.nanoTime();
+        while (true) {
+            final Stat stat = new Stat();
+            final long first;
+            try {
+                first = Longs.fromByteArray(curatorFramework.getData().storingStatIn(stat).forPath(path));
+            }
+            catch (KeeperException.NoNodeException e) {
+                try {
+                    curatorFramework.create()
+                            .creatingParentContainersIfNeeded()
+                            .forPath(path, Longs.toByteArray(FIRST_VALUE + blockSize));
+                    return leased(start, new Block(FIRST_VALUE, FIRST_VALUE + blockSize));
+                }
+                catch (KeeperException.NodeExistsException e1) {
+                    continue;
+                }
+            }
+            try {
+                curatorFramework.setData()
+                        .withVersion(stat.getVersion())
+                        .forPath(path, Longs.toByteArray(first + blockSize));
+                return leased(start, new Block(first, first + blockSize));
+            }
+            catch (KeeperException.BadVersionException e) {
+                if (null != leaseConflicts) {
+                    leaseConflicts.inc();
+                }
+            }
+        }
+    }
+
+    private Block leased(long start, Block block) {
+        if (null != leaseTime) {
+            leaseTime.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        return block;
+    }
+
+    /**
+     * A leased range of numbers, from first (inclusive) to end (exclusive)
+     */
+    private static final class Block {
+        private final AtomicLong next;
+        private final long end;
+        private final long prefetchAt;
+
+        private Block(long first, long end) {
+            this.next = new AtomicLong(first);
+            this.end = end;
+            this.prefetchAt = first + (end - first) / 2;
+        }
+    }
+
+    private final class Sequence {
+        private final String path;
+        private volatile Block current = new Block(0, 0);
+        private CompletableFuture<Block> prefetched;
+
+        private Sequence(String path) {
+            this.path = path;
+        }
+
+        long next() {
+            while (true) {
+                final Block block = current;
+                final long value = block.next.getAndIncrement();
+                if (value < block.end) {
+                    if (value == block.prefetchAt) {
+                        prefetch();
+                    }
+                    return value;
+                }
+                advance(block);
+            }
+        }
+
+        private synchronized void prefetch() {
+            if (null != prefetched || prefetcher.isShutdown()) {
+                return;
+            }
+            try {
+                prefetched = CompletableFuture.supplyAsync(this::leaseUnchecked, prefetcher);
+            }
+            catch (RejectedExecutionException e) {
+                log.debug("Prefetcher is closed, next block of {} will be leased when needed", path);
+            }
+        }
+
+        private synchronized void advance(Block exhausted) {
+            if (current != exhausted) {
+                return;
+            }
+            Block next = null;
+            //A prefetch still queued when the prefetcher was closed will never run
+            if (null != prefetched && !prefetched.isDone() && prefetcher.isShutdown()) {
+                prefetched = null;
+            }
+            if (null != prefetched) {
+                try {
+                    next = prefetched.get();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for a block of " + path, e);
+                }
+                catch (ExecutionException e) {
+                    log.warn("Prefetching a block of {} failed, will lease one now: {}", path, e.getMessage());
+                }
+                prefetched = null;
+            }
+            current = null != next ? next : leaseUnchecked();
+        }
+
+        private Block leaseUnchecked() {
+            try {
+                return lease(path);
+            }
+            catch (Exception e) {
+                throw new IllegalStateException("Could not lease a block of " + path, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free allocator for exponents within a millisecond.
+ * The exponent space is split into stripes of {@value #STRIPE_WIDTH} slots. Every stripe packs the millisecond it is
+ * serving and the bitmap of used slots into a single long, so a slot is claimed with one CAS. Callers start probing
+ * at a random stripe, which spreads concurrent threads over different stripes (and cache lines).
+ * A stripe only ever moves forward in time, so a slot handed out for a millisecond is never handed out again.
+ * A summary keeps track of the stripes found full in a millisecond, {@value #SUMMARY_WIDTH} stripes per long, so
+ * probing a busy or exhausted millisecond skips full stripes instead of visiting every one of them. The summary is
+ * only a hint, the stripes themselves decide what is free.
+ */
+public class StripedExponentAllocator implements ExponentAllocator {
+    private static final int STRIPE_WIDTH = 16;
+    private static final long SLOT_MASK = (1L << STRIPE_WIDTH) - 1;
+    //Number of longs in a cache line. Every stripe sits on it's own line, unless there are too many stripes for
+    //threads to run into each other anyway.
+    private static final int PADDING = 8;
+    private static final int MAX_PADDED_STRIPES = 1024;
+    //Every summary word packs the low bits of the millisecond and a bitmap of the full stripes in it
+    private static final int SUMMARY_WIDTH = 24;
+    private static final long SUMMARY_MASK = (1L << SUMMARY_WIDTH) - 1;
+    private static final long SUMMARY_TIME_MASK = (1L << (64 - SUMMARY_WIDTH)) - 1;
+
+    private final int maxExponents;
+    private final int numStripes;
+    private final int padding;
+    private final AtomicLongArray stripes;
+    private final int numSummaryWords;
+    private final AtomicLongArray fullStripes;
+
+    public StripedExponentAllocator(int maxExponents) {
+        Preconditions.checkArgument(maxExponents > 0, "Provide a non-zero positive exponent count");
+        this.maxExponents = maxExponents;
+        this.numStripes = (maxExponents + STRIPE_WIDTH - 1) / STRIPE_WIDTH;
+        this.padding = numStripes > MAX_PADDED_STRIPES ? 1 : PADDING;
+        this.stripes = new AtomicLongArray(numStripes * padding);
+        this.numSummaryWords = (numStripes + SUMMARY_WIDTH - 1) / SUMMARY_WIDTH;
+        this.fullStripes = new AtomicLongArray(numSummaryWords);
+    }
+
+    @Override
+    public int allocate(long time) {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final int start = random.nextInt(numSummaryWords);
+        for (int i = 0; i < numSummaryWords; i++) {
+            final int word = (start + i) % numSummaryWords;
+            long candidates = candidateStripes(word, time);
+            while (candidates != 0) {
+                final int bit = pick(candidates, random.nextInt(SUMMARY_WIDTH), SUMMARY_WIDTH);
+                candidates &= ~(1L << bit);
+                final int stripe = word * SUMMARY_WIDTH + bit;
+                final int slot = allocate(stripe, time, random);
+                if (slot >= 0) {
+                    return stripe * STRIPE_WIDTH + slot;
+                }
+                markFull(stripe, time);
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean allocate(long time, int exponent) {
+        final int stripe = exponent / STRIPE_WIDTH;
+        final int index = stripe * padding;
+        final long slot = 1L << (exponent % STRIPE_WIDTH);
+        while (true) {
+            final long current = stripes.get(index);
+            final long stripeTime = current >>> STRIPE_WIDTH;
+            if (stripeTime > time) {
+                return false;
+            }
+            final long used = stripeTime == time ? current & SLOT_MASK : 0L;
+            if ((used & slot) != 0) {
+                return false;
+            }
+            if (stripes.compareAndSet(index, current, (time << STRIPE_WIDTH) | used | slot)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Whole runs of free slots in a stripe are taken with a single CAS.
+     */
+    @Override
+    public int allocate(long time, int[] exponents, int offset, int count) {
+        final int start = ThreadLocalRandom.current().nextInt(numSummaryWords);
+        int claimed = 0;
+        for (int i = 0; i < numSummaryWords && claimed < count; i++) {
+            final int word = (start + i) % numSummaryWords;
+            long candidates = candidateStripes(word, time);
+            while (candidates != 0 && claimed < count) {
+                final long lowest = candidates & -candidates;
+                candidates ^= lowest;
+                final int stripe = word * SUMMARY_WIDTH + Long.numberOfTrailingZeros(lowest);
+                final int taken = allocate(stripe, time, exponents, offset + claimed, count - claimed);
+                if (taken == 0) {
+                    markFull(stripe, time);
+                }
+                claimed += taken;
+            }
+        }
+        return claimed;
+    }
+
+    @Override
+    public boolean exhausted(long time) {
+        for (int word = 0; word < numSummaryWords; word++) {
+            long candidates = candidateStripes(word, time);
+            while (candidates != 0) {
+                final long lowest = candidates & -candidates;
+                candidates ^= lowest;
+                final int stripe = word * SUMMARY_WIDTH + Long.numberOfTrailingZeros(lowest);
+                if (!isFull(stripe, time)) {
+                    return false;
+                }
+                markFull(stripe, time);
+            }
+        }
+        return true;
+    }
+
+    private int allocate(int stripe, long time, int[] exponents, int offset, int count) {
+        final int index = stripe * padding;
+        final long validSlots = validSlots(stripe);
+        while (true) {
+            final long current = stripes.get(index);
+            final long stripeTime = current >>> STRIPE_WIDTH;
+            if (stripeTime > time) {
+                return 0;
+            }
+            final long used = stripeTime == time ? current & SLOT_MASK : 0L;
+            long free = ~used & validSlots;
+            if (free == 0) {
+                return 0;
+            }
+            long taken = 0;
+            for (int i = 0; i < count && free != 0; i++) {
+                final long lowest = free & -free;
+                taken |= lowest;
+                free ^= lowest;
+            }
+            if (stripes.compareAndSet(index, current, (time << STRIPE_WIDTH) | used | taken)) {
+                int position = offset;
+                while (taken != 0) {
+                    exponents[position++] = stripe * STRIPE_WIDTH + Long.numberOfTrailingZeros(taken);
+                    taken &= taken - 1;
+                }
+                return position - offset;
+            }
+        }
+    }
+
+    private int allocate(int stripe, long time, ThreadLocalRandom random) {
+        final int index = stripe * padding;
+        final long validSlots = validSlots(stripe);
+        while (true) {
+            final long current = stripes.get(index);
+            final long stripeTime = current >>> STRIPE_WIDTH;
+            if (stripeTime > time) {
+                return -1;
+            }
+            final long used = stripeTime == time ? current & SLOT_MASK : 0L;
+            final long free = ~used & validSlots;
+            if (free == 0) {
+                return -1;
+            }
+            final int slot = pick(free, random.nextInt(STRIPE_WIDTH), STRIPE_WIDTH);
+            if (stripes.compareAndSet(index, current, (time << STRIPE_WIDTH) | used | (1L << slot))) {
+                return slot;
+            }
+        }
+    }
+
+    private boolean isFull(int stripe, long time) {
+        final long current = stripes.get(stripe * padding);
+        final long stripeTime = current >>> STRIPE_WIDTH;
+        return stripeTime > time
+                || (stripeTime == time && (current & SLOT_MASK) == validSlots(stripe));
+    }
+
+    /**
+     * Stripes of a summary word that are not known to be full in the given millisecond
+     */
+    private long candidateStripes(int word, long time) {
+        final long summary = fullStripes.get(word);
+        final long valid = validStripes(word);
+        return (summary >>> SUMMARY_WIDTH) == (time & SUMMARY_TIME_MASK)
+               ? ~summary & valid
+               : valid;
+    }
+
+    private void markFull(int stripe, long time) {
+        final int word = stripe / SUMMARY_WIDTH;
+        final long bit = 1L << (stripe % SUMMARY_WIDTH);
+        final long tag = (time & SUMMARY_TIME_MASK) << SUMMARY_WIDTH;
+        while (true) {
+            final long summary = fullStripes.get(word);
+            final long next = (summary & ~SUMMARY_MASK) == tag
+                              ? summary | bit
+                              : tag | bit;
+            if (summary == next || fullStripes.compareAndSet(word, summary, next)) {
+                return;
+            }
+        }
+    }
+
+    private long validSlots(int stripe) {
+        final int width = Math.min(STRIPE_WIDTH, maxExponents - stripe * STRIPE_WIDTH);
+        return (1L << width) - 1;
+    }
+
+    private long validStripes(int word) {
+        final int width = Math.min(SUMMARY_WIDTH, numStripes - word * SUMMARY_WIDTH);
+        return (1L << width) - 1;
+    }
+
+    //Picks the first set bit at or after the given offset, wrapping around the given width
+    private static int pick(long bits, int offset, int width) {
+        final long mask = (1L << width) - 1;
+        final long rotated = ((bits >>> offset) | (bits << (width - offset))) & mask;
+        return (Long.numberOfTrailingZeros(rotated) + offset) % width;
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id.constraints;
+
+import io.appform.dropwizard.discovery.bundle.id.Id;
+import io.appform.dropwizard.discovery.bundle.id.constraints.impl.KeyPartitioner;
+
+/**
+ * A constraint that accepts ids which land on a given partition.
+ * As the partition of every exponent in a millisecond can be computed upfront, the generator builds matching ids
+ * directly instead of generating random ids and rejecting the ones that don't match.
+ */
+public interface ConstructibleIdConstraint extends IdValidationConstraint {
+
+    KeyPartitioner partitioner();
+
+    int partition();
+
+    @Override
+    default boolean isValid(Id id) {
+        return partition() == partitioner().partition(id);
+    }
+}
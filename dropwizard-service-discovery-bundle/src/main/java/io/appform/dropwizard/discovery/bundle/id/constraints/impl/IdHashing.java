@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id.constraints.impl;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Hash functions over the UTF-8 bytes of an id, computed straight from the id string.
+ * Ids are almost always ASCII, in which case every char is a byte and nothing is allocated. Strings with other
+ * characters are encoded once into a string that holds one UTF-8 byte per char, so the same code handles both.
+ * All hashes match the reference implementations over the UTF-8 bytes.
+ */
+final class IdHashing {
+    private static final int MURMUR3_C1 = 0xcc9e2d51;
+    private static final int MURMUR3_C2 = 0x1b873593;
+
+    private static final int MURMUR2_M = 0x5bd1e995;
+    private static final int MURMUR2_R = 24;
+
+    private static final long XXH_PRIME64_1 = 0x9E3779B185EBCA87L;
+    private static final long XXH_PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long XXH_PRIME64_3 = 0x165667B19E3779F9L;
+    private static final long XXH_PRIME64_4 = 0x85EBCA77C2B2AE63L;
+    private static final long XXH_PRIME64_5 = 0x27D4EB2F165667C5L;
+
+    private IdHashing() {}
+
+    /**
+     * @return The string itself if it is ASCII, otherwise a string with one UTF-8 byte per char
+     */
+    static String utf8Bytes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80) {
+                return new String(value.getBytes(StandardCharsets.UTF_8), StandardCharsets.ISO_8859_1);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Murmur3 x86 32 bit hash
+     */
+    static int murmur3x32(String value, int seed) {
+        final String bytes = utf8Bytes(value);
+        final int length = bytes.length();
+        int h = seed;
+        int i = 0;
+        for (; i + 4 <= length; i += 4) {
+            h ^= murmur3MixK(int32(bytes, i));
+            h = Integer.rotateLeft(h, 13) * 5 + 0xe6546b64;
+        }
+        int k = 0;
+        switch (length - i) {
+            case 3:
+                k ^= byteAt(bytes, i + 2) << 16;
+            case 2: //NOSONAR
+                k ^= byteAt(bytes, i + 1) << 8;
+            case 1: //NOSONAR
+                k ^= byteAt(bytes, i);
+                h ^= murmur3MixK(k);
+            default:
+                break;
+        }
+        h ^= length;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * Murmur2 32 bit hash as implemented by Kafka's Utils.murmur2(), with the seed used by the default partitioner
+     */
+    static int murmur2(String value) {
+        final String bytes = utf8Bytes(value);
+        final int length = bytes.length();
+        int h = 0x9747b28c ^ length;
+        int i = 0;
+        for (; i + 4 <= length; i += 4) {
+            int k = int32(bytes, i);
+            k *= MURMUR2_M;
+            k ^= k >>> MURMUR2_R;
+            k *= MURMUR2_M;
+            h *= MURMUR2_M;
+            h ^= k;
+        }
+        switch (length - i) {
+            case 3:
+                h ^= byteAt(bytes, i + 2) << 16;
+            case 2: //NOSONAR
+                h ^= byteAt(bytes, i + 1) << 8;
+            case 1: //NOSONAR
+                h ^= byteAt(bytes, i);
+                h *= MURMUR2_M;
+            default:
+                break;
+        }
+        h ^= h >>> 13;
+        h *= MURMUR2_M;
+        h ^= h >>> 15;
+        return h;
+    }
+
+    /**
+     * XXH64 hash
+     */
+    static long xxHash64(String value, long seed) {
+        final String bytes = utf8Bytes(value);
+        final int length = bytes.length();
+        int i = 0;
+        long h;
+        if (length >= 32) {
+            long v1 = seed + XXH_PRIME64_1 + XXH_PRIME64_2;
+            long v2 = seed + XXH_PRIME64_2;
+            long v3 = seed;
+            long v4 = seed - XXH_PRIME64_1;
+            for (; i + 32 <= length; i += 32) {
+                v1 = xxhRound(v1, int64(bytes, i));
+                v2 = xxhRound(v2, int64(bytes, i + 8));
+                v3 = xxhRound(v3, int64(bytes, i + 16));
+                v4 = xxhRound(v4, int64(bytes, i + 24));
+            }
+            h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            h = xxhMergeRound(h, v1);
+            h = xxhMergeRound(h, v2);
+            h = xxhMergeRound(h, v3);
+            h = xxhMergeRound(h, v4);
+        }
+        else {
+            h = seed + XXH_PRIME64_5;
+        }
+        h += length;
+        for (; i + 8 <= length; i += 8) {
+            h ^= xxhRound(0, int64(bytes, i));
+            h = Long.rotateLeft(h, 27) * XXH_PRIME64_1 + XXH_PRIME64_4;
+        }
+        if (i + 4 <= length) {
+            h ^= (int32(bytes, i) & 0xFFFFFFFFL) * XXH_PRIME64_1;
+            h = Long.rotateLeft(h, 23) * XXH_PRIME64_2 + XXH_PRIME64_3;
+            i += 4;
+        }
+        for (; i < length; i++) {
+            h ^= byteAt(bytes, i) * XXH_PRIME64_5;
+            h = Long.rotateLeft(h, 11) * XXH_PRIME64_1;
+        }
+        h ^= h >>> 33;
+        h *= XXH_PRIME64_2;
+        h ^= h >>> 29;
+        h *= XXH_PRIME64_3;
+        h ^= h >>> 32;
+        return h;
+    }
+
+    /**
+     * Jump consistent hash (Lamping and Veach). Growing the bucket count from n to n + 1 moves only 1/(n + 1) of
+     * the keys, all of them to the new bucket.
+     */
+    static int jumpConsistentHash(long key, int buckets) {
+        long k = key;
+        long b = -1;
+        long j = 0;
+        while (j < buckets) {
+            b = j;
+            k = k * 2862933555777941757L + 1;
+            j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((k >>> 33) + 1)));
+        }
+        return (int) b;
+    }
+
+    private static int murmur3MixK(int k) {
+        k *= MURMUR3_C1;
+        k = Integer.rotateLeft(k, 15);
+        return k * MURMUR3_C2;
+    }
+
+    private static long xxhRound(long acc, long input) {
+        acc += input * XXH_PRIME64_2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * XXH_PRIME64_1;
+    }
+
+    private static long xxhMergeRound(long acc, long value) {
+        acc ^= xxhRound(0, value);
+        return acc * XXH_PRIME64_1 + XXH_PRIME64_4;
+    }
+
+    private static int byteAt(String bytes, int index) {
+        return bytes.charAt(index) & 0xFF;
+    }
+
+    private static int int32(String bytes, int index) {
+        return byteAt(bytes, index)
+                | byteAt(bytes, index + 1) << 8
+                | byteAt(bytes, index + 2) << 16
+                | byteAt(bytes, index + 3) << 24;
+    }
+
+    private static long int64(String bytes, int index) {
+        return (int32(bytes, index) & 0xFFFFFFFFL) | ((long) int32(bytes, index + 4)) << 32;
+    }
+}
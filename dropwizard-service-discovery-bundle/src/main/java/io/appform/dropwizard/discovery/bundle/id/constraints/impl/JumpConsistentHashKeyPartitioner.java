@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.appform.dropwizard.discovery.bundle.id.constraints.impl;
+
+import com.google.common.base.Preconditions;
+import io.appform.dropwizard.discovery.bundle.id.Id;
+
+/**
+ * Partitions with jump consistent hash over the xxHash64 hash of the id string. Does not allocate.
+ * When the partition count grows from n to n + 1, only 1/(n + 1) of the ids move, all of them to the new partition.
+ * With modulo based partitioners almost every id moves.
+ */
+public class JumpConsistentHashKeyPartitioner implements KeyPartitioner {
+
+    private final int maxPartitions;
+
+    public JumpConsistentHashKeyPartitioner(int maxPartitions) {
+        Preconditions.checkArgument(maxPartitions > 0, "Provide a non-zero positive partition count");
+        this.maxPartitions = maxPartitions;
+    }
+
+    @Override
+    public int partition(Id id) {
+        return IdHashing.jumpConsistentHash(IdHashing.xxHash64(id.getId(), 0), maxPartitions);
+    }
+}
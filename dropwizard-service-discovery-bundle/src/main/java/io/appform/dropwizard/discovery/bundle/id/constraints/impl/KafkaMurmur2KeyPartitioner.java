@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.appform.dropwizard.discovery.bundle.id.constraints.impl;
+
+import com.google.common.base.Preconditions;
+import io.appform.dropwizard.discovery.bundle.id.Id;
+
+/**
+ * Partitions ids the same way Kafka's default partitioner partitions records keyed by the id string: murmur2 over
+ * the UTF-8 bytes of the key, sign bit masked, modulo the partition count.
+ * Use with a {@link PartitionValidator} to generate ids that land on a chosen Kafka partition. Ids are built to
+ * match directly, see {@link io.appform.dropwizard.discovery.bundle.id.constraints.ConstructibleIdConstraint}.
+ * NOTE: Only holds for records produced with the id as a String key (StringSerializer, UTF-8) and no custom
+ * partitioner.
+ */
+public class KafkaMurmur2KeyPartitioner implements KeyPartitioner {
+
+    private final int numPartitions;
+
+    public KafkaMurmur2KeyPartitioner(int numPartitions) {
+        Preconditions.checkArgument(numPartitions > 0, "Provide a non-zero positive partition count");
+        this.numPartitions = numPartitions;
+    }
+
+    @Override
+    public int partition(Id id) {
+        return (IdHashing.murmur2(id.getId()) & 0x7fffffff) % numPartitions;
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.appform.dropwizard.discovery.bundle.id.constraints.impl;
+
+import com.google.common.base.Preconditions;
+import io.appform.dropwizard.discovery.bundle.id.Id;
+
+/**
+ * Partitions on the murmur3 32 bit hash of the id string.
+ * Unlike {@link MurmurBasedKeyPartitioner}, which hashes the full {@link Id#toString()} with a 128 bit hash, this
+ * hashes just the id and does not allocate. The two put ids on different partitions.
+ */
+public class Murmur3KeyPartitioner implements KeyPartitioner {
+
+    private final int maxPartitions;
+
+    public Murmur3KeyPartitioner(int maxPartitions) {
+        Preconditions.checkArgument(maxPartitions > 0, "Provide a non-zero positive partition count");
+        this.maxPartitions = maxPartitions;
+    }
+
+    @Override
+    public int partition(Id id) {
+        return (IdHashing.murmur3x32(id.getId(), 0) & Integer.MAX_VALUE) % maxPartitions;
+    }
+}
@@ -19,21 +19,21 @@ package io.appform.dropwizard.discovery.bundle.id.constraints.impl;
 
 import com.google.common.base.Preconditions;
 import io.appform.dropwizard.discovery.bundle.id.Id;
-import io.appform.dropwizard.discovery.bundle.id.constraints.IdValidationConstraint;
+import io.appform.dropwizard.discovery.bundle.id.constraints.ConstructibleIdConstraint;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Checks if key is same partition as provided.
  */
 @Slf4j
-public class PartitionValidator implements IdValidationConstraint {
+public class PartitionValidator implements ConstructibleIdConstraint {
 
     private final int partition;
     private final KeyPartitioner partitioner;
 
     public PartitionValidator(int partition, KeyPartitioner partitioner) {
-        Preconditions.checkArgument(partition > 0,
-                                    "Provide a non-negative and non-zero partition count");
+        Preconditions.checkArgument(partition >= 0,
+                                    "Provide a non-negative partition");
         Preconditions.checkArgument(partitioner != null,
                                     "Provide a non null key partitioner");
         this.partition = partition;
@@ -44,4 +44,14 @@ public class PartitionValidator implements IdValidationConstraint {
     public boolean isValid(Id id) {
         return partition == partitioner.partition(id);
     }
+
+    @Override
+    public KeyPartitioner partitioner() {
+        return partitioner;
+    }
+
+    @Override
+    public int partition() {
+        return partition;
+    }
 }
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Test for {@link BulkIdParser}
+ */
+public class BulkIdParserTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final BulkIdParser parser = new BulkIdParser();
+
+    @Test
+    public void testParseArray() {
+        final String[] ids = ids();
+        assertMatchesParse(ids, parser.parse(ids));
+    }
+
+    @Test
+    public void testParseStream() {
+        final String[] ids = ids();
+        assertMatchesParse(ids, parser.parse(Arrays.stream(ids)));
+    }
+
+    @Test
+    public void testParseBuffer() {
+        final String[] ids = ids();
+        final StringBuilder lines = new StringBuilder("SKIPPED");
+        for (int i = 0; i < ids.length; i++) {
+            lines.append(ids[i]).append(i % 2 == 0 ? "\r\n" : "\n");
+        }
+        final byte[] bytes = lines.toString().getBytes(StandardCharsets.US_ASCII);
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes);
+        buffer.position(7);
+        assertMatchesParse(ids, parser.parse(buffer));
+        Assert.assertEquals(7, buffer.position());
+    }
+
+    @Test
+    public void testParseBufferAcrossRanges() {
+        final String[] ids = IdGenerator.generateBatch("R", 100_000)
+                .stream()
+                .map(Id::getId)
+                .toArray(String[]::new);
+        ids[25_000] = "";
+        ids[50_000] = "not an id";
+        //No line break after the last id
+        final byte[] bytes = String.join("\n", ids).getBytes(StandardCharsets.US_ASCII);
+        assertMatchesParse(ids, parser.parse(ByteBuffer.wrap(bytes)));
+    }
+
+    @Test
+    public void testParseFile() throws Exception {
+        final String[] ids = ids();
+        final Path file = folder.newFile("ids.txt").toPath();
+        Files.write(file, Arrays.asList(ids), StandardCharsets.US_ASCII);
+        assertMatchesParse(ids, parser.parse(file));
+    }
+
+    @Test
+    public void testEmptyLinesAreInvalid() {
+        final String id = IdGenerator.generate("T").getId();
+        final IdColumns columns = parser.parse(ByteBuffer.wrap(("\n" + id + "\n\n").getBytes(StandardCharsets.US_ASCII)));
+        Assert.assertEquals(3, columns.getSize());
+        Assert.assertFalse(columns.isValid(0));
+        Assert.assertTrue(columns.isValid(1));
+        Assert.assertFalse(columns.isValid(2));
+        Assert.assertEquals(-1, columns.getNode()[2]);
+    }
+
+    private static String[] ids() {
+        final List<String> ids = IdGenerator.generateBatch("B", 20_000)
+                .stream()
+                .map(Id::getId)
+                .collect(Collectors.toList());
+        ids.set(10, "B2102301010101010000000");
+        ids.set(11, "not an id");
+        ids.set(12, "");
+        return ids.toArray(new String[0]);
+    }
+
+    private static void assertMatchesParse(String[] ids, IdColumns columns) {
+        Assert.assertEquals(ids.length, columns.getSize());
+        for (int i = 0; i < ids.length; i++) {
+            final Id id = IdGenerator.parse(ids[i]).orElse(null);
+            if (null == id) {
+                Assert.assertFalse(columns.isValid(i));
+                continue;
+            }
+            Assert.assertTrue(columns.isValid(i));
+            Assert.assertEquals(id.epochMillis(), columns.getEpochMillis()[i]);
+            Assert.assertEquals(id.getNode(), columns.getNode()[i]);
+            Assert.assertEquals(id.getExponent(), columns.getExponent()[i]);
+        }
+    }
+}
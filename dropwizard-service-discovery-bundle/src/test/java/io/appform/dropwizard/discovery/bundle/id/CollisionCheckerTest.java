@@ -23,6 +23,7 @@ import org.junit.Test;
 /**
  * Test on {@link CollisionChecker}
  */
+@SuppressWarnings("deprecation")
 public class CollisionCheckerTest {
 
     @Test
@@ -34,6 +35,18 @@ public class CollisionCheckerTest {
             Assert.assertTrue(collisionChecker.check(101, i));
             Assert.assertFalse(collisionChecker.check(101, i));
         }
+        Assert.assertFalse(collisionChecker.check(100, 2));
+        Assert.assertFalse(collisionChecker.check(101, 1));
 
     }
+
+    @Test
+    public void testCheckWideLayout() {
+        CollisionChecker collisionChecker = new CollisionChecker(IdLayout.WIDE);
+        for (int i = 0; i < IdLayout.WIDE.maxIdsPerMs(); i += 997) {
+            Assert.assertTrue(collisionChecker.check(100, i));
+            Assert.assertFalse(collisionChecker.check(100, i));
+        }
+        Assert.assertTrue(collisionChecker.check(100, IdLayout.WIDE.maxIdsPerMs() - 1));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import com.google.common.collect.ImmutableList;
+import io.appform.dropwizard.discovery.bundle.id.constraints.IdValidationConstraint;
+import io.appform.dropwizard.discovery.bundle.id.constraints.impl.JavaHashCodeBasedKeyPartitioner;
+import io.appform.dropwizard.discovery.bundle.id.constraints.impl.PartitionValidator;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test on {@link ConstraintPipeline}
+ */
+public class ConstraintPipelineTest {
+
+    private static IdValidationConstraint rejectingEvery(int n, boolean failFast) {
+        return new IdValidationConstraint() {
+            @Override
+            public boolean isValid(Id id) {
+                return id.getExponent() % n != 0;
+            }
+
+            @Override
+            public boolean failFast() {
+                return failFast;
+            }
+        };
+    }
+
+    private static void evaluate(ConstraintPipeline pipeline, int count) {
+        for (int i = 0; i < count; i++) {
+            pipeline.firstRejection(new Id("T", 0L, 1, i));
+        }
+    }
+
+    @Test
+    public void testFirstRejection() {
+        IdValidationConstraint even = rejectingEvery(2, false);
+        IdValidationConstraint third = rejectingEvery(3, false);
+        ConstraintPipeline pipeline = ConstraintPipeline.fixed(ImmutableList.of(even, third));
+        Assert.assertNull(pipeline.firstRejection(new Id("T", 0L, 1, 1)));
+        Assert.assertSame(even, pipeline.firstRejection(new Id("T", 0L, 1, 6)));
+        Assert.assertSame(third, pipeline.firstRejection(new Id("T", 0L, 1, 3)));
+        Assert.assertNull(ConstraintPipeline.EMPTY.firstRejection(new Id("T", 0L, 1, 0)));
+    }
+
+    @Test
+    public void testAdaptiveReorder() {
+        IdValidationConstraint rare = rejectingEvery(100, false);
+        IdValidationConstraint frequent = rejectingEvery(2, false);
+        ConstraintPipeline pipeline = ConstraintPipeline.adaptive(ImmutableList.of(rare, frequent));
+        evaluate(pipeline, 1_000_000);
+        Assert.assertEquals(ImmutableList.of(frequent, rare), pipeline.order());
+    }
+
+    @Test
+    public void testNoReorderAcrossFailFast() {
+        IdValidationConstraint rare = rejectingEvery(100, false);
+        IdValidationConstraint failFast = rejectingEvery(50, true);
+        IdValidationConstraint frequent = rejectingEvery(2, false);
+        IdValidationConstraint alsoFrequent = rejectingEvery(3, false);
+        ConstraintPipeline pipeline
+                = ConstraintPipeline.adaptive(ImmutableList.of(rare, failFast, alsoFrequent, frequent));
+        evaluate(pipeline, 1_000_000);
+        Assert.assertEquals(ImmutableList.of(rare, failFast, frequent, alsoFrequent), pipeline.order());
+    }
+
+    @Test
+    public void testFixedPipelineKeepsOrder() {
+        IdValidationConstraint rare = rejectingEvery(100, false);
+        IdValidationConstraint frequent = rejectingEvery(2, false);
+        ConstraintPipeline pipeline = ConstraintPipeline.fixed(ImmutableList.of(rare, frequent));
+        evaluate(pipeline, 100_000);
+        Assert.assertEquals(ImmutableList.of(rare, frequent), pipeline.order());
+    }
+
+    @Test
+    public void testConstructible() {
+        PartitionValidator validator = new PartitionValidator(1, new JavaHashCodeBasedKeyPartitioner(4));
+        Assert.assertSame(validator,
+                          ConstraintPipeline.adaptive(ImmutableList.of(rejectingEvery(2, false), validator))
+                                  .constructible());
+        Assert.assertNull(ConstraintPipeline.fixed(ImmutableList.of(rejectingEvery(2, false))).constructible());
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import com.google.common.primitives.UnsignedBytes;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * Test for {@link IdCodec} and {@link IdTextEncoding}
+ */
+public class IdCodecTest {
+
+    @Test
+    public void testRoundTrip() {
+        for (Id id : IdGenerator.generateBatch("RT", 5000)) {
+            final String decimal = id.getId();
+            Assert.assertEquals(decimal, IdGenerator.fromPacked("RT", id.toPacked()).map(Id::getId).orElse(null));
+            Assert.assertEquals(decimal, IdGenerator.fromBytes("RT", id.toBytes()).map(Id::getId).orElse(null));
+            Assert.assertEquals(decimal, IdGenerator.fromBytes("RT", id.toWideBytes()).map(Id::getId).orElse(null));
+            for (IdTextEncoding encoding : IdTextEncoding.values()) {
+                final String text = id.toText(encoding);
+                Assert.assertEquals(2 + encoding.width(), text.length());
+                Assert.assertEquals(id, IdGenerator.parseText(text, encoding).orElse(null));
+            }
+        }
+    }
+
+    @Test
+    public void testOrderIsKept() {
+        final List<Id> ids = new IdGeneratorEngine(3, IdGenerationMode.MONOTONIC).generateBatch("O", 5000);
+        for (int i = 1; i < ids.size(); i++) {
+            final Id previous = ids.get(i - 1);
+            final Id current = ids.get(i);
+            Assert.assertTrue(Long.compareUnsigned(previous.toPacked(), current.toPacked()) < 0);
+            Assert.assertTrue(UnsignedBytes.lexicographicalComparator().compare(previous.toBytes(), current.toBytes()) < 0);
+            Assert.assertTrue(UnsignedBytes.lexicographicalComparator().compare(previous.toWideBytes(), current.toWideBytes()) < 0);
+            for (IdTextEncoding encoding : IdTextEncoding.values()) {
+                Assert.assertTrue(previous.toText(encoding).compareTo(current.toText(encoding)) < 0);
+            }
+        }
+    }
+
+    @Test
+    public void testGenerateEncoded() {
+        IdGenerator.initialize(23);
+        final long packed = IdGenerator.generatePacked();
+        Assert.assertEquals(23, IdCodec.node(packed));
+        Assert.assertTrue(Math.abs(System.currentTimeMillis() - IdCodec.epochMillis(packed)) < 60_000);
+        final Id id = IdGenerator.parseText(IdGenerator.generateText("TXT", IdTextEncoding.BASE62), IdTextEncoding.BASE62)
+                .orElse(null);
+        Assert.assertNotNull(id);
+        Assert.assertEquals("TXT", id.prefix());
+        Assert.assertEquals(23, id.getNode());
+        Assert.assertTrue(IdGenerator.parse(id.getId()).isPresent());
+    }
+
+    @Test
+    public void testCrockfordAliases() {
+        final Id id = IdCodec.fromPacked("C", IdCodec.pack(IdCodec.PACKED_EPOCH_MILLIS + 1, 1, 1));
+        Assert.assertEquals("C00000000G00Z9", id.toText(IdTextEncoding.CROCKFORD_BASE32));
+        Assert.assertEquals(id, IdGenerator.parseText("C00000000g0oz9", IdTextEncoding.CROCKFORD_BASE32).orElse(null));
+        final Id one = IdCodec.fromPacked("C", 1L);
+        Assert.assertEquals("C0000000000001", one.toText(IdTextEncoding.CROCKFORD_BASE32));
+        Assert.assertEquals(one, IdGenerator.parseText("C000000000000I", IdTextEncoding.CROCKFORD_BASE32).orElse(null));
+        Assert.assertEquals(one, IdGenerator.parseText("C000000000000l", IdTextEncoding.CROCKFORD_BASE32).orElse(null));
+    }
+
+    @Test
+    public void testInvalidInputs() {
+        Assert.assertFalse(IdGenerator.parseText("SHORT", IdTextEncoding.BASE62).isPresent());
+        Assert.assertFalse(IdGenerator.parseText("Xzzzzzzzzzzz", IdTextEncoding.BASE62).isPresent());
+        Assert.assertFalse(IdGenerator.parseText("X0000000000U00", IdTextEncoding.CROCKFORD_BASE32).isPresent());
+        Assert.assertFalse(IdGenerator.parseText(null, IdTextEncoding.CROCKFORD_BASE32).isPresent());
+        Assert.assertFalse(IdGenerator.fromBytes("X", new byte[4]).isPresent());
+        Assert.assertFalse(IdGenerator.fromPacked("X", -1L).isPresent());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPackBeforeEpoch() {
+        IdCodec.pack(IdCodec.PACKED_EPOCH_MILLIS - 1, 0, 0);
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import org.joda.time.DateTime;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Test on {@link IdFormatter}
+ */
+public class IdFormatterTest {
+    private final DateTimeFormatter dateFormatter = DateTimeFormat.forPattern("yyMMddHHmmssSSS");
+
+    @Test
+    public void testFormatMatchesStringFormat() {
+        IdFormatter idFormatter = new IdFormatter(dateFormatter);
+        Random random = new Random(42);
+        long time = System.currentTimeMillis();
+        for (int i = 0; i < 10_000; i++) {
+            time += random.nextInt(1500);
+            int node = random.nextInt(Constants.MAX_NUM_NODES);
+            int exponent = random.nextInt(Constants.MAX_ID_PER_MS);
+            Assert.assertEquals(expected("TEST", time, node, exponent),
+                                idFormatter.format("TEST", time, node, exponent));
+        }
+    }
+
+    @Test
+    public void testFormatTo() throws Exception {
+        IdFormatter idFormatter = new IdFormatter(dateFormatter);
+        long time = System.currentTimeMillis();
+        StringBuilder builder = new StringBuilder("key:");
+        Assert.assertEquals("key:" + expected("X", time, 23, 7),
+                            idFormatter.formatTo(builder, "X", time, 23, 7).toString());
+        Appendable appendable = new StringBuilder();
+        Assert.assertEquals(expected("Y", time, 9999, 999),
+                            idFormatter.formatTo(appendable, "Y", time, 9999, 999).toString());
+    }
+
+    @Test
+    public void testLongPrefix() {
+        IdFormatter idFormatter = new IdFormatter(dateFormatter);
+        String prefix = new String(new char[100]).replace('\0', 'P');
+        long time = System.currentTimeMillis();
+        Assert.assertEquals(expected(prefix, time, 1, 1), idFormatter.format(prefix, time, 1, 1));
+    }
+
+    private String expected(String prefix, long time, int node, int exponent) {
+        return String.format("%s%s%04d%03d", prefix, dateFormatter.print(new DateTime(time)), node, exponent);
+    }
+}
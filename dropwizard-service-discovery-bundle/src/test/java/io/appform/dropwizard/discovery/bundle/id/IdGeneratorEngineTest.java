@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import com.codahale.metrics.MetricRegistry;
+import io.appform.dropwizard.discovery.bundle.id.constraints.IdValidationConstraint;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Test for {@link IdGeneratorEngine}
+ */
+public class IdGeneratorEngineTest {
+
+    @Test
+    public void testEnginesHaveIndependentExponentSpaces() {
+        IdGeneratorEngine payments = new IdGeneratorEngine(11);
+        IdGeneratorEngine orders = new IdGeneratorEngine(11);
+        List<Id> paymentIds = payments.generateBatch("PAY", 2500);
+        List<Id> orderIds = orders.generateBatch("ORD", 2500);
+        Assert.assertEquals(2500, paymentIds.stream().map(Id::getId).distinct().count());
+        Assert.assertEquals(2500, orderIds.stream().map(Id::getId).distinct().count());
+        Assert.assertTrue(orderIds.stream().allMatch(id -> id.getNode() == 11 && "ORD".equals(id.prefix())));
+    }
+
+    @Test
+    public void testDomainEngineFollowsNodeId() {
+        IdGenerator.initialize(23);
+        IdGeneratorEngine engine = IdGenerator.engine("events");
+        Assert.assertSame(engine, IdGenerator.engine("events"));
+        Assert.assertEquals(23, engine.generate("EVT").getNode());
+        IdGenerator.initialize(24);
+        Assert.assertEquals(24, engine.generate("EVT").getNode());
+        IdGenerator.initialize(23);
+    }
+
+    @Test
+    public void testDomainConstraintsArePerEngine() {
+        IdGeneratorEngine engine = new IdGeneratorEngine(1);
+        engine.registerDomainSpecificConstraints("test", id -> false);
+        Assert.assertFalse(engine.generateWithConstraints("T", "test").isPresent());
+        Assert.assertTrue(new IdGeneratorEngine(1).generateWithConstraints("T", "test").isPresent());
+    }
+
+    @Test
+    public void testRegisterAfterInitializeWithImmutableConstraints() {
+        IdGeneratorEngine engine = new IdGeneratorEngine(1);
+        engine.initialize(1, Collections.emptyList(), Collections.emptyMap());
+        engine.registerGlobalConstraints(id -> id.getExponent() % 2 == 0);
+        Assert.assertEquals(0, engine.generateWithConstraints("T", Collections.emptyList())
+                .map(Id::getExponent)
+                .orElse(-1) % 2);
+        engine.cleanUp();
+        engine.cleanUp();
+        Assert.assertTrue(engine.generateWithConstraints("T", Collections.emptyList()).isPresent());
+    }
+
+    @Test
+    public void testLiveConstraintUpdates() throws Exception {
+        IdGeneratorEngine engine = new IdGeneratorEngine(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        AtomicBoolean done = new AtomicBoolean();
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            results.add(executorService.submit(() -> {
+                while (!done.get()) {
+                    engine.generateWithConstraints("T", "live");
+                }
+                return true;
+            }));
+        }
+        for (int i = 0; i < 200; i++) {
+            engine.registerDomainSpecificConstraints("live", id -> true);
+        }
+        done.set(true);
+        for (Future<Boolean> result : results) {
+            Assert.assertTrue(result.get());
+        }
+        executorService.shutdownNow();
+        Assert.assertTrue(engine.generateWithConstraints("T", "live").isPresent());
+    }
+
+    @Test
+    public void testMonotonicIdsAreSorted() {
+        IdGeneratorEngine engine = new IdGeneratorEngine(7, IdGenerationMode.MONOTONIC);
+        String previous = "";
+        for (int i = 0; i < 5000; i++) {
+            String id = engine.generate("M").getId();
+            Assert.assertTrue(id.compareTo(previous) > 0);
+            previous = id;
+        }
+        for (Id id : engine.generateBatch("M", 2500)) {
+            Assert.assertTrue(id.getId().compareTo(previous) > 0);
+            previous = id.getId();
+        }
+        Assert.assertTrue(IdGenerator.parse(previous).isPresent());
+    }
+
+    @Test
+    public void testPermutedIdsAreUnique() {
+        IdGeneratorEngine engine = new IdGeneratorEngine(7, IdGenerationMode.PERMUTED);
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < 5000; i++) {
+            Assert.assertTrue(ids.add(engine.generate("P").getId()));
+        }
+        engine.generateBatch("P", 2500).forEach(id -> Assert.assertTrue(ids.add(id.getId())));
+    }
+
+    @Test
+    public void testMetrics() {
+        MetricRegistry metricRegistry = new MetricRegistry();
+        IdGeneratorEngine engine = new IdGeneratorEngine(1);
+        engine.registerMetrics(metricRegistry, "test");
+        engine.registerDomainSpecificConstraints("never", id -> false);
+        engine.registerDomainSpecificConstraints("fail-fast", new IdValidationConstraint() {
+            @Override
+            public boolean isValid(Id id) {
+                return false;
+            }
+
+            @Override
+            public boolean failFast() {
+                return true;
+            }
+        });
+        engine.generate("T");
+        engine.generateBatch("T", 10);
+        engine.generateInto(new StringBuilder(), "T");
+        Assert.assertFalse(engine.generateWithConstraints("T", "never").isPresent());
+        Assert.assertFalse(engine.generateWithConstraints("T", "fail-fast").isPresent());
+        final String base = MetricRegistry.name(IdGenerator.class, "test");
+        //Per id timings are sampled, the ids meter has the totals
+        Assert.assertTrue(metricRegistry.timer(MetricRegistry.name(base, "generate")).getCount() <= 2 + 512 + 1);
+        Assert.assertEquals(1, metricRegistry.timer(MetricRegistry.name(base, "generateBatch")).getCount());
+        Assert.assertEquals(2 + 10 + 512 + 1, metricRegistry.meter(MetricRegistry.name(base, "ids")).getCount());
+        Assert.assertEquals(512, metricRegistry.counter(MetricRegistry.name(base, "constraintFailures", "never")).getCount());
+        Assert.assertEquals(1, metricRegistry.counter(MetricRegistry.name(base, "constraintFailures", "fail-fast")).getCount());
+        Assert.assertEquals(1, metricRegistry.counter(MetricRegistry.name(base, "failFastRejections")).getCount());
+        Assert.assertEquals(1, metricRegistry.counter(MetricRegistry.name(base, "gaveUp")).getCount());
+        Assert.assertEquals(2, metricRegistry.histogram(MetricRegistry.name(base, "constraintAttempts")).getCount());
+        Assert.assertTrue(metricRegistry.getGauges().containsKey(MetricRegistry.name(base, "clock.overflows")));
+    }
+
+    @Test
+    public void testWideLayoutGoesPastThousandIdsPerMs() {
+        IdGeneratorEngine engine = new IdGeneratorEngine(54321, IdGenerationMode.MONOTONIC, IdLayout.WIDE);
+        List<Id> ids = engine.generateBatch("W", 5000);
+        Assert.assertEquals(5000, ids.stream().map(Id::getId).distinct().count());
+        Assert.assertTrue(ids.stream().allMatch(id -> id.epochMillis() == ids.get(0).epochMillis()));
+        for (Id id : ids) {
+            Assert.assertEquals(id, IdGenerator.parse(id.getId()).orElse(null));
+            Assert.assertEquals(id.getId(), IdGenerator.fromBytes("W", id.toWideBytes()).map(Id::getId).orElse(null));
+        }
+        Assert.assertEquals(4999, ids.get(4999).getExponent() - ids.get(0).getExponent());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testWideLayoutCanNotBePacked() {
+        new IdGeneratorEngine(1, IdGenerationMode.RANDOM, IdLayout.WIDE).generatePacked();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDomainEngineModeMismatch() {
+        Assert.assertEquals(IdGenerationMode.MONOTONIC, IdGenerator.engine("ledger", IdGenerationMode.MONOTONIC).getMode());
+        IdGenerator.engine("ledger");
+    }
+
+    @Test
+    public void testPrefixBelongsToOneDomainEngine() {
+        IdGeneratorEngine owner = IdGenerator.engine("prefixOwner");
+        IdGeneratorEngine other = IdGenerator.engine("prefixIntruder");
+        Assert.assertEquals("OWN", owner.generate("OWN").prefix());
+        assertRejected(() -> other.generate("OWN"));
+        assertRejected(() -> other.generateBatch("OWN", 10));
+        assertRejected(() -> IdGenerator.generate("OWN"));
+        Assert.assertEquals(10, owner.generateBatch("OWN", 10).size());
+        Assert.assertEquals("OTH", other.generate("OTH").prefix());
+        //Engines created directly are not checked
+        Assert.assertEquals("OWN", new IdGeneratorEngine(23).generate("OWN").prefix());
+    }
+
+    private static void assertRejected(Runnable generation) {
+        try {
+            generation.run();
+            Assert.fail("Prefix of another engine was accepted");
+        }
+        catch (IllegalStateException e) {
+            Assert.assertTrue(e.getMessage().contains("prefixOwner"));
+        }
+    }
+}
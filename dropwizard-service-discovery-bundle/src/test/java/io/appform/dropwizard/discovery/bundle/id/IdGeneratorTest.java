@@ -137,6 +137,55 @@ public class IdGeneratorTest {
 
     }
 
+    @Test
+    public void testGenerateBatch() {
+        IdGenerator.initialize(23);
+        List<Id> ids = IdGenerator.generateBatch("X", 5000);
+        Assert.assertEquals(5000, ids.size());
+        Assert.assertEquals(5000, ids.stream().map(Id::getId).distinct().count());
+        for (Id id : ids) {
+            Assert.assertEquals(id, IdGenerator.parse(id.getId()).orElse(null));
+        }
+    }
+
+    @Test
+    public void testGenerateWithConstructibleConstraint() {
+        IdGenerator.initialize(23);
+        JavaHashCodeBasedKeyPartitioner partitioner = new JavaHashCodeBasedKeyPartitioner(1024);
+        PartitionValidator validator = new PartitionValidator(1000, partitioner);
+        for (int i = 0; i < 200; i++) {
+            Optional<Id> id = IdGenerator.generateWithConstraints("X", Collections.singletonList(validator));
+            Assert.assertTrue(id.isPresent());
+            Assert.assertEquals(1000, partitioner.partition(id.get()));
+        }
+    }
+
+    @Test
+    public void testConstructibleConstraintWithOtherConstraintFailure() {
+        IdGenerator.initialize(23);
+        Assert.assertFalse(IdGenerator.generateWithConstraints(
+                "TST",
+                ImmutableList.of(new PartitionValidator(4, new JavaHashCodeBasedKeyPartitioner(16)), id -> false),
+                false).isPresent());
+    }
+
+    @Test
+    public void testConstructibleConstraintWithExceptions() {
+        IdGenerator.initialize(23);
+        Assert.assertFalse(IdGenerator.generateWithConstraints(
+                "TST",
+                Collections.singletonList(new PartitionValidator(4, id -> {
+                    throw new IllegalStateException("Partitioner failure");
+                })),
+                false).isPresent());
+        Assert.assertFalse(IdGenerator.generateWithConstraints(
+                "TST",
+                ImmutableList.of(new PartitionValidator(4, new JavaHashCodeBasedKeyPartitioner(16)), id -> {
+                    throw new IllegalStateException("Constraint failure");
+                }),
+                false).isPresent());
+    }
+
     @Test
     public void testConstraintFailure() {
         IdGenerator.initialize(23);
@@ -185,6 +234,28 @@ public class IdGeneratorTest {
                 id.getGeneratedDate());
     }
 
+    @Test
+    public void testParsePrimitiveAccessors() {
+        Id id = IdGenerator.parse("ABC2011250959030643972247").orElse(null);
+        Assert.assertNotNull(id);
+        Assert.assertEquals("ABC", id.prefix());
+        Assert.assertEquals(3972, id.node());
+        Assert.assertEquals(247, id.exponent());
+        Assert.assertEquals(generateDate(2020, 11, 25, 9, 59, 3, 64, ZoneId.systemDefault()).getTime(),
+                            id.epochMillis());
+    }
+
+    @Test
+    public void testIsValidFormat() {
+        Assert.assertTrue(IdGenerator.isValidFormat("ABC2011250959030643972247"));
+        Assert.assertTrue(IdGenerator.isValidFormat(new StringBuilder("2011250959030643972247")));
+        Assert.assertFalse(IdGenerator.isValidFormat(null));
+        Assert.assertFalse(IdGenerator.isValidFormat("TEST"));
+        Assert.assertFalse(IdGenerator.isValidFormat("ABC20112509590306439722X7"));
+        Assert.assertFalse(IdGenerator.isValidFormat("ABC2032250959030643972247"));
+        Assert.assertFalse(IdGenerator.isValidFormat("ABC2011259659030643972247"));
+    }
+
     @Test
     public void testParseSuccessAfterGeneration(){
         Id generatedId = IdGenerator.generate("TEST123");
@@ -198,6 +269,79 @@ public class IdGeneratorTest {
         Assert.assertEquals(parsedId.getGeneratedDate(), generatedId.getGeneratedDate());
     }
 
+    @Test
+    public void testGenerateInto() {
+        IdGenerator.initialize(23);
+        StringBuilder key = IdGenerator.generateInto(new StringBuilder("order:"), "TEST123");
+        Assert.assertTrue(key.toString().startsWith("order:TEST123"));
+        Optional<Id> parsedId = IdGenerator.parse(key.substring("order:".length()));
+        Assert.assertTrue(parsedId.isPresent());
+        Assert.assertEquals(23, parsedId.get().getNode());
+    }
+
+    @Test
+    public void testRangeFor() {
+        IdGenerator.initialize(23);
+        Id id = IdGenerator.generate("TEST");
+        //The shared clock can run ahead of the wall clock, so the window comes from the id and not from Instant.now()
+        Instant from = Instant.ofEpochMilli(id.epochMillis()).minusMillis(50);
+        Instant to = Instant.ofEpochMilli(id.epochMillis()).plusMillis(50);
+        IdRange range = IdGenerator.rangeFor("TEST", from, to);
+        Assert.assertTrue(range.contains(id.getId()));
+        Assert.assertTrue(IdGenerator.rangeFor("TEST", from, to, 23).contains(id.getId()));
+        Assert.assertFalse(IdGenerator.rangeFor("TEST", from.minusSeconds(10), from.minusSeconds(5)).contains(id.getId()));
+        Assert.assertFalse(IdGenerator.rangeFor("TEST", to.plusMillis(1), to.plusSeconds(5)).contains(id.getId()));
+
+        IdRange exact = IdGenerator.rangeFor("TEST", Instant.ofEpochMilli(id.epochMillis()), Instant.ofEpochMilli(id.epochMillis()), 23);
+        Assert.assertEquals(id.getId().substring(0, id.getId().length() - 3) + "000", exact.getLowest());
+        Assert.assertEquals(id.getId().substring(0, id.getId().length() - 3) + "999", exact.getHighest());
+    }
+
+    @Test
+    public void testParseWideLayout() {
+        Id id = IdGenerator.parse("ABC20112509590306454321999999W").orElse(null);
+        Assert.assertNotNull(id);
+        Assert.assertEquals(IdLayout.WIDE, id.layout());
+        Assert.assertEquals("ABC", id.prefix());
+        Assert.assertEquals(54321, id.node());
+        Assert.assertEquals(999999, id.exponent());
+        Assert.assertEquals(generateDate(2020, 11, 25, 9, 59, 3, 64, ZoneId.systemDefault()).getTime(),
+                            id.epochMillis());
+        Assert.assertTrue(IdGenerator.isValidFormat("ABC20112509590306454321999999W"));
+        Assert.assertFalse(IdGenerator.isValidFormat("ABC2011250959030645432199999W"));
+        Assert.assertEquals(IdLayout.CLASSIC, IdGenerator.parse("ABC2011250959030643972247").map(Id::layout).orElse(null));
+    }
+
+    @Test
+    public void testInitializeWithWideLayout() {
+        IdGenerator.initialize(23);
+        IdGenerator.registerDomainSpecificConstraints("wide", id -> id.getExponent() % 2 == 0);
+        IdGeneratorEngine engine = IdGenerator.engine("wideDomain");
+        try {
+            IdGenerator.initialize(54321, IdLayout.WIDE);
+            Assert.assertEquals(IdLayout.WIDE, IdGenerator.layout());
+            Id id = IdGenerator.generate("W");
+            Assert.assertEquals(IdLayout.WIDE, id.layout());
+            Assert.assertEquals(54321, IdGenerator.parse(id.getId()).map(Id::getNode).orElse(-1).intValue());
+            Assert.assertEquals(0, IdGenerator.generateWithConstraints("W", "wide")
+                    .map(Id::getExponent)
+                    .orElse(-1) % 2);
+            Assert.assertNotSame(engine, IdGenerator.engine("wideDomain"));
+            Assert.assertEquals(IdLayout.WIDE, IdGenerator.engine("wideDomain").generate("D").layout());
+            Assert.assertTrue(IdGenerator.rangeFor("W", Instant.ofEpochMilli(id.epochMillis()), Instant.now(), 54321)
+                                      .contains(id.getId()));
+        }
+        finally {
+            IdGenerator.initialize(23, IdLayout.CLASSIC);
+        }
+        Assert.assertEquals(IdLayout.CLASSIC, IdGenerator.generate("C").layout());
+        Assert.assertEquals(23, IdGenerator.generate("C").getNode());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNodeOutOfRangeForLayout() {
+        IdGenerator.initialize(54321);
+    }
 
     private Date generateDate(int year, int month, int day, int hour, int min, int sec, int ms, ZoneId zoneId) {
         return Date.from(
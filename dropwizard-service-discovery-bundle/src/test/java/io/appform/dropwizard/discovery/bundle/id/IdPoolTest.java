@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableSet;
+import org.awaitility.Awaitility;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test for {@link IdPool}
+ */
+public class IdPoolTest {
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+    private IdPool idPool;
+
+    @Before
+    public void setup() {
+        IdGenerator.initialize(23);
+        idPool = new IdPool(IdPoolConfiguration.builder()
+                                    .prefixes(ImmutableSet.of("P"))
+                                    .lowWatermark(10)
+                                    .highWatermark(100)
+                                    .build(),
+                            metricRegistry);
+        idPool.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        idPool.stop();
+    }
+
+    @Test
+    public void testTake() {
+        Awaitility.await()
+                .atMost(Duration.ofSeconds(10))
+                .until(() -> idPool.depth("P") == 100);
+        Id id = idPool.take("P").orElse(null);
+        Assert.assertNotNull(id);
+        Assert.assertEquals("P", id.prefix());
+        Assert.assertEquals(99, idPool.depth("P"));
+    }
+
+    @Test
+    public void testTakeAsyncOnEmptyPool() throws Exception {
+        Assert.assertFalse(idPool.take("Q").isPresent());
+        Id id = idPool.takeAsync("R").get(10, TimeUnit.SECONDS);
+        Assert.assertEquals("R", id.prefix());
+        Assert.assertEquals(1, metricRegistry.meter(MetricRegistry.name(IdPool.class, "Q", "underflow")).getCount());
+        Awaitility.await()
+                .atMost(Duration.ofSeconds(10))
+                .until(() -> idPool.depth("Q") == 100);
+    }
+
+    @Test
+    public void testTakeAsyncAfterStop() throws Exception {
+        idPool.stop();
+        Id id = idPool.takeAsync("S").get(10, TimeUnit.SECONDS);
+        Assert.assertEquals("S", id.prefix());
+        IdPool notStarted = new IdPool(IdPoolConfiguration.builder()
+                                               .prefixes(ImmutableSet.of("P"))
+                                               .lowWatermark(10)
+                                               .highWatermark(100)
+                                               .build(),
+                                       null);
+        Assert.assertEquals("T", notStarted.takeAsync("T").get(10, TimeUnit.SECONDS).prefix());
+    }
+}
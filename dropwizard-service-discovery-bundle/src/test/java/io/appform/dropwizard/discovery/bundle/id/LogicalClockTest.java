@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import io.appform.dropwizard.discovery.bundle.id.constraints.impl.JavaHashCodeBasedKeyPartitioner;
+import io.appform.dropwizard.discovery.bundle.id.constraints.impl.PartitionValidator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Test on {@link LogicalClock}
+ */
+public class LogicalClockTest {
+
+    private static class TestClock extends LogicalClock {
+        private final AtomicLong wallTime;
+
+        TestClock(long maxLeadMs, long wallTime) {
+            super(maxLeadMs);
+            this.wallTime = new AtomicLong(wallTime);
+        }
+
+        @Override
+        protected long currentTimeMillis() {
+            return wallTime.get();
+        }
+    }
+
+    @Test
+    public void testNeverGoesBack() {
+        TestClock clock = new TestClock(5, 1000);
+        Assert.assertEquals(1000, clock.now());
+        clock.wallTime.set(900);
+        Assert.assertEquals(1000, clock.now());
+        Assert.assertEquals(1, clock.getRegressions());
+        clock.wallTime.set(1001);
+        Assert.assertEquals(1001, clock.now());
+    }
+
+    @Test
+    public void testBorrowsWithinLead() {
+        TestClock clock = new TestClock(2, 1000);
+        Assert.assertEquals(1001, clock.next(clock.now()));
+        Assert.assertEquals(1002, clock.next(1001));
+        Assert.assertEquals(1002, clock.now());
+        Assert.assertEquals(2, clock.getOverflows());
+        Assert.assertEquals(0, clock.getWaits());
+    }
+
+    @Test
+    public void testParksBeyondLead() throws Exception {
+        TestClock clock = new TestClock(0, 1000);
+        Thread ticker = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            clock.wallTime.set(1001);
+        });
+        ticker.start();
+        Assert.assertEquals(1001, clock.next(clock.now()));
+        ticker.join();
+        Assert.assertTrue(clock.getWaits() > 0);
+        Assert.assertTrue(clock.getWaitNanos() > 0);
+        Assert.assertEquals(0, clock.getOverflows());
+    }
+
+    @Test
+    public void testAfterWaitsWithoutBorrowing() throws Exception {
+        TestClock clock = new TestClock(5, 1000);
+        Thread ticker = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            clock.wallTime.set(1001);
+        });
+        ticker.start();
+        Assert.assertEquals(1001, clock.after(clock.now()));
+        ticker.join();
+        Assert.assertTrue(clock.getWaits() > 0);
+        Assert.assertEquals(0, clock.getOverflows());
+        Assert.assertEquals(1002, clock.next(1001));
+        Assert.assertEquals(1002, clock.after(1000));
+    }
+
+    @Test
+    public void testPartitionMissesDoNotBorrow() {
+        LogicalClock clock = new LogicalClock(Constants.DEFAULT_MAX_TIME_LEAD_MS);
+        IdGeneratorEngine engine = new IdGeneratorEngine(1, IdGenerationMode.RANDOM, clock);
+        JavaHashCodeBasedKeyPartitioner partitioner = new JavaHashCodeBasedKeyPartitioner(1024);
+        PartitionValidator validator = new PartitionValidator(7, partitioner);
+        for (int i = 0; i < 20; i++) {
+            Id id = engine.generateWithConstraints("S", Collections.singletonList(validator)).orElse(null);
+            Assert.assertNotNull(id);
+            Assert.assertEquals(7, partitioner.partition(id));
+        }
+        Assert.assertEquals(0, clock.getOverflows());
+    }
+
+    @Test
+    public void testEngineDoesNotReissueAfterRegression() {
+        TestClock clock = new TestClock(1000, 1000);
+        IdGeneratorEngine engine = new IdGeneratorEngine(1, IdGenerationMode.RANDOM, clock);
+        Set<String> ids = new HashSet<>();
+        engine.generateBatch("R", 1500).forEach(id -> ids.add(id.getId()));
+        clock.wallTime.set(990);
+        engine.generateBatch("R", 1500).forEach(id -> ids.add(id.getId()));
+        Assert.assertEquals(3000, ids.size());
+        Assert.assertEquals(2, clock.getOverflows());
+        Assert.assertEquals(1, clock.getRegressions());
+    }
+}
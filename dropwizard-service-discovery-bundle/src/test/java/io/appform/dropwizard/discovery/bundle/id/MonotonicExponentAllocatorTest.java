@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test on {@link MonotonicExponentAllocator}
+ */
+public class MonotonicExponentAllocatorTest {
+
+    @Test
+    public void testAllocateInOrder() {
+        MonotonicExponentAllocator allocator = new MonotonicExponentAllocator(Constants.MAX_ID_PER_MS);
+        for (int i = 0; i < Constants.MAX_ID_PER_MS; i++) {
+            Assert.assertEquals(i, allocator.allocate(100));
+        }
+        Assert.assertEquals(-1, allocator.allocate(100));
+        Assert.assertTrue(allocator.exhausted(100));
+        Assert.assertFalse(allocator.exhausted(101));
+        Assert.assertEquals(0, allocator.allocate(101));
+        Assert.assertEquals(-1, allocator.allocate(100));
+        Assert.assertTrue(allocator.exhausted(100));
+    }
+
+    @Test
+    public void testBatchAllocation() {
+        MonotonicExponentAllocator allocator = new MonotonicExponentAllocator(Constants.MAX_ID_PER_MS);
+        Assert.assertEquals(0, allocator.allocate(100));
+        int[] exponents = new int[Constants.MAX_ID_PER_MS];
+        Assert.assertEquals(600, allocator.allocate(100, exponents, 0, 600));
+        Assert.assertEquals(399, allocator.allocate(100, exponents, 600, 400));
+        Assert.assertEquals(0, allocator.allocate(100, exponents, 0, 1));
+        for (int i = 0; i < 999; i++) {
+            Assert.assertEquals(i + 1, exponents[i]);
+        }
+    }
+
+    @Test
+    public void testSpecificExponentSkipsAhead() {
+        MonotonicExponentAllocator allocator = new MonotonicExponentAllocator(Constants.MAX_ID_PER_MS);
+        Assert.assertTrue(allocator.allocate(100, 10));
+        Assert.assertFalse(allocator.allocate(100, 5));
+        Assert.assertFalse(allocator.allocate(100, 10));
+        Assert.assertEquals(11, allocator.allocate(100));
+        Assert.assertTrue(allocator.allocate(101, 5));
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import com.codahale.metrics.MetricRegistry;
+import org.apache.curator.RetryPolicy;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.RetryForever;
+import org.apache.curator.retry.RetryNTimes;
+import org.apache.curator.test.TestingCluster;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test for {@link NodeIdManager}
+ */
+public class NodeIdManagerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final TestingCluster testingCluster = new TestingCluster(1);
+    private CuratorFramework curator;
+
+    @Before
+    public void setup() throws Exception {
+        testingCluster.start();
+        curator = CuratorFrameworkFactory.newClient(testingCluster.getConnectString(), new RetryForever(1000));
+        curator.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        curator.close();
+        testingCluster.stop();
+    }
+
+    @Test
+    public void testNodesAreUnique() throws Exception {
+        MetricRegistry metricRegistry = new MetricRegistry();
+        curator.create().creatingParentContainersIfNeeded().forPath("/id-generator/test/unrelated");
+        Set<Integer> nodes = new HashSet<>();
+        for (int i = 0; i < 50; i++) {
+            NodeIdManager nodeIdManager = new NodeIdManager(curator, "test", IdLayout.CLASSIC, metricRegistry);
+            int node = nodeIdManager.fixNodeId();
+            Assert.assertEquals(node, nodeIdManager.getNode());
+            Assert.assertTrue(node >= 0 && node < Constants.MAX_NUM_NODES);
+            Assert.assertTrue(nodes.add(node));
+            Assert.assertNotNull(curator.checkExists().forPath(new CuratorPathUtils("test").path(node)));
+        }
+        Assert.assertEquals(50, metricRegistry.timer(MetricRegistry.name(NodeIdManager.class, "allocation")).getCount());
+        Assert.assertEquals(50, metricRegistry.histogram(MetricRegistry.name(NodeIdManager.class, "allocationAttempts"))
+                .getCount());
+    }
+
+    @Test
+    public void testWideLayout() {
+        int node = new NodeIdManager(curator, "wide", IdLayout.WIDE).fixNodeId();
+        Assert.assertTrue(node >= 0 && node < IdLayout.WIDE.maxNodes());
+    }
+
+    @Test
+    public void testLeasedNodeIsReclaimed() throws Exception {
+        MetricRegistry metricRegistry = new MetricRegistry();
+        Path leaseFile = folder.getRoot().toPath().resolve("lease").resolve("node.properties");
+        int node = new NodeIdManager(curator, "sticky", IdLayout.CLASSIC, null, leaseFile).fixNodeId();
+        //The ephemeral node of the previous run is gone once it's session expires
+        curator.delete().forPath(new CuratorPathUtils("sticky").path(node));
+        NodeIdManager restarted = new NodeIdManager(curator, "sticky", IdLayout.CLASSIC, metricRegistry, leaseFile);
+        Assert.assertEquals(node, restarted.fixNodeId());
+        Assert.assertEquals(1, metricRegistry.counter(MetricRegistry.name(NodeIdManager.class, "leaseReclaims")).getCount());
+    }
+
+    @Test
+    public void testTakenLeaseFallsBackToAllocation() throws Exception {
+        Path leaseFile = folder.getRoot().toPath().resolve("node.properties");
+        int node = new NodeIdManager(curator, "sticky", IdLayout.CLASSIC, null, leaseFile).fixNodeId();
+        int next = new NodeIdManager(curator, "sticky", IdLayout.CLASSIC, null, leaseFile).fixNodeId();
+        Assert.assertNotEquals(node, next);
+        curator.delete().forPath(new CuratorPathUtils("sticky").path(next));
+        Assert.assertEquals(next, new NodeIdManager(curator, "sticky", IdLayout.CLASSIC, null, leaseFile).fixNodeId());
+    }
+
+    @Test
+    public void testLeaseOfOtherLayoutIsIgnored() throws Exception {
+        Path leaseFile = folder.getRoot().toPath().resolve("node.properties");
+        int node = new NodeIdManager(curator, "sticky", IdLayout.WIDE, null, leaseFile).fixNodeId();
+        curator.delete().forPath(new CuratorPathUtils("sticky").path(node));
+        MetricRegistry metricRegistry = new MetricRegistry();
+        new NodeIdManager(curator, "sticky", IdLayout.CLASSIC, metricRegistry, leaseFile).fixNodeId();
+        Assert.assertEquals(0, metricRegistry.counter(MetricRegistry.name(NodeIdManager.class, "leaseReclaims")).getCount());
+    }
+
+    @Test
+    public void testErrorsAreRetriedAsPerRetryPolicy() throws Exception {
+        CuratorFramework failingCurator = failingCurator(20, new RetryNTimes(50, 1));
+        int node = new NodeIdManager(failingCurator, "flaky").fixNodeId();
+        Assert.assertTrue(node >= 0 && node < Constants.MAX_NUM_NODES);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testErrorsFailOnceRetryPolicyGivesUp() throws Exception {
+        new NodeIdManager(failingCurator(20, new RetryNTimes(5, 1)), "flaky").fixNodeId();
+    }
+
+    /**
+     * Curator that fails to list claimed nodes the given number of times before it succeeds
+     */
+    private static CuratorFramework failingCurator(int failures, RetryPolicy retryPolicy) throws Exception {
+        CuratorFramework failingCurator = Mockito.mock(CuratorFramework.class, Mockito.RETURNS_DEEP_STUBS);
+        AtomicInteger calls = new AtomicInteger();
+        Mockito.when(failingCurator.getChildren().forPath(Mockito.anyString())).thenAnswer(invocation -> {
+            if (calls.incrementAndGet() <= failures) {
+                throw new KeeperException.ConnectionLossException();
+            }
+            return Collections.emptyList();
+        });
+        Mockito.when(failingCurator.create()
+                             .creatingParentContainersIfNeeded()
+                             .withMode(CreateMode.EPHEMERAL)
+                             .forPath(Mockito.anyString()))
+                .thenReturn("created");
+        Mockito.when(failingCurator.getZookeeperClient().getRetryPolicy()).thenReturn(retryPolicy);
+        return failingCurator;
+    }
+}
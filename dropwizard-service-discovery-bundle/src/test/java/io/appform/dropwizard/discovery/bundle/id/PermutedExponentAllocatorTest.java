@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Test on {@link PermutedExponentAllocator}
+ */
+public class PermutedExponentAllocatorTest {
+
+    @Test
+    public void testPermutationCoversRange() {
+        for (int maxExponents : new int[]{2, 3, 1000, 1024, 1025}) {
+            PermutedExponentAllocator allocator = new PermutedExponentAllocator(maxExponents);
+            long key = allocator.key(System.currentTimeMillis());
+            BitSet seen = new BitSet(maxExponents);
+            for (int i = 0; i < maxExponents; i++) {
+                int exponent = allocator.permute(key, i);
+                Assert.assertTrue(exponent >= 0 && exponent < maxExponents);
+                Assert.assertFalse(seen.get(exponent));
+                seen.set(exponent);
+                Assert.assertEquals(i, allocator.inverse(key, exponent));
+            }
+        }
+    }
+
+    @Test
+    public void testAllocateExhaustsMillisecond() {
+        PermutedExponentAllocator allocator = new PermutedExponentAllocator(Constants.MAX_ID_PER_MS);
+        BitSet seen = new BitSet(Constants.MAX_ID_PER_MS);
+        for (int i = 0; i < Constants.MAX_ID_PER_MS; i++) {
+            int exponent = allocator.allocate(100);
+            Assert.assertFalse(seen.get(exponent));
+            seen.set(exponent);
+        }
+        Assert.assertEquals(-1, allocator.allocate(100));
+        Assert.assertTrue(allocator.allocate(101) >= 0);
+    }
+
+    @Test
+    public void testOrderDependsOnSecretAndTime() {
+        PermutedExponentAllocator first = new PermutedExponentAllocator(Constants.MAX_ID_PER_MS, 1L);
+        PermutedExponentAllocator second = new PermutedExponentAllocator(Constants.MAX_ID_PER_MS, 2L);
+        int[] firstOrder = new int[Constants.MAX_ID_PER_MS];
+        int[] secondOrder = new int[Constants.MAX_ID_PER_MS];
+        int[] nextOrder = new int[Constants.MAX_ID_PER_MS];
+        Assert.assertEquals(Constants.MAX_ID_PER_MS, first.allocate(100, firstOrder, 0, Constants.MAX_ID_PER_MS));
+        Assert.assertEquals(Constants.MAX_ID_PER_MS, second.allocate(100, secondOrder, 0, Constants.MAX_ID_PER_MS));
+        Assert.assertEquals(Constants.MAX_ID_PER_MS, first.allocate(101, nextOrder, 0, Constants.MAX_ID_PER_MS));
+        Assert.assertFalse(Arrays.equals(firstOrder, secondOrder));
+        Assert.assertFalse(Arrays.equals(firstOrder, nextOrder));
+    }
+}
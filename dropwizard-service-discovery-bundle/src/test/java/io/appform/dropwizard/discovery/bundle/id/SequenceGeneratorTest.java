@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.primitives.Longs;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.RetryForever;
+import org.apache.curator.test.TestingCluster;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Test for {@link SequenceGenerator}
+ */
+public class SequenceGeneratorTest {
+    private final TestingCluster testingCluster = new TestingCluster(1);
+    private CuratorFramework curator;
+
+    @Before
+    public void setup() throws Exception {
+        testingCluster.start();
+        curator = CuratorFrameworkFactory.newClient(testingCluster.getConnectString(), new RetryForever(1000));
+        curator.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        curator.close();
+        testingCluster.stop();
+    }
+
+    @Test
+    public void testSequenceIsIncreasing() throws Exception {
+        MetricRegistry metricRegistry = new MetricRegistry();
+        try (SequenceGenerator sequenceGenerator = new SequenceGenerator(curator, "billing", 100, metricRegistry)) {
+            for (long i = 1; i <= 950; i++) {
+                Assert.assertEquals(i, sequenceGenerator.next("orders"));
+            }
+            Assert.assertEquals(1, sequenceGenerator.next("payments"));
+        }
+        Assert.assertEquals(1001, Longs.fromByteArray(curator.getData().forPath("/id-sequences/billing/orders")));
+        Assert.assertEquals(11, metricRegistry.timer(MetricRegistry.name(SequenceGenerator.class, "lease")).getCount());
+    }
+
+    @Test
+    public void testSequenceIsUniqueAcrossNodes() throws Exception {
+        Set<Long> values = ConcurrentHashMap.newKeySet();
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try (SequenceGenerator first = new SequenceGenerator(curator, "billing", 10, null);
+             SequenceGenerator second = new SequenceGenerator(curator, "billing", 7, null)) {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                final SequenceGenerator sequenceGenerator = t % 2 == 0 ? first : second;
+                results.add(executorService.submit(() -> {
+                    long previous = 0;
+                    for (int i = 0; i < 500; i++) {
+                        final long value = sequenceGenerator.next("shared");
+                        if (value <= previous || !values.add(value)) {
+                            return false;
+                        }
+                        previous = value;
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                Assert.assertTrue(result.get());
+            }
+        }
+        finally {
+            executorService.shutdownNow();
+        }
+        Assert.assertEquals(4000, values.size());
+    }
+
+    @Test
+    public void testSequencesAreScopedByService() throws Exception {
+        try (SequenceGenerator billing = new SequenceGenerator(curator, "billing", 10, null);
+             SequenceGenerator shipping = new SequenceGenerator(curator, "shipping", 10, null)) {
+            Assert.assertEquals(1, billing.next("orders"));
+            Assert.assertEquals(2, billing.next("orders"));
+            Assert.assertEquals(1, shipping.next("orders"));
+        }
+        Assert.assertEquals(11, Longs.fromByteArray(curator.getData().forPath("/id-sequences/shipping/orders")));
+    }
+
+    @Test
+    public void testNextAfterClose() {
+        SequenceGenerator sequenceGenerator = new SequenceGenerator(curator, "billing", 10, null);
+        Assert.assertEquals(1, sequenceGenerator.next("orders"));
+        sequenceGenerator.close();
+        for (long i = 2; i <= 25; i++) {
+            Assert.assertEquals(i, sequenceGenerator.next("orders"));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSequenceName() {
+        new SequenceGenerator(curator, "billing", 10, null).next("a/b");
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.bundle.id;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Test on {@link StripedExponentAllocator}
+ */
+public class StripedExponentAllocatorTest {
+
+    @Test
+    public void testAllocateExhaustsMillisecond() {
+        StripedExponentAllocator allocator = new StripedExponentAllocator(Constants.MAX_ID_PER_MS);
+        BitSet seen = new BitSet(Constants.MAX_ID_PER_MS);
+        for (int i = 0; i < Constants.MAX_ID_PER_MS; i++) {
+            int exponent = allocator.allocate(100);
+            Assert.assertTrue(exponent >= 0 && exponent < Constants.MAX_ID_PER_MS);
+            Assert.assertFalse(seen.get(exponent));
+            seen.set(exponent);
+        }
+        Assert.assertEquals(-1, allocator.allocate(100));
+        Assert.assertTrue(allocator.exhausted(100));
+        Assert.assertFalse(allocator.exhausted(101));
+        Assert.assertTrue(allocator.allocate(101) >= 0);
+        Assert.assertFalse(allocator.exhausted(101));
+    }
+
+    @Test
+    public void testBatchAllocation() {
+        StripedExponentAllocator allocator = new StripedExponentAllocator(Constants.MAX_ID_PER_MS);
+        Assert.assertTrue(allocator.allocate(100) >= 0);
+        int[] exponents = new int[Constants.MAX_ID_PER_MS];
+        Assert.assertEquals(600, allocator.allocate(100, exponents, 0, 600));
+        Assert.assertEquals(399, allocator.allocate(100, exponents, 600, 400));
+        Assert.assertEquals(0, allocator.allocate(100, exponents, 0, 1));
+        Assert.assertEquals(-1, allocator.allocate(100));
+        BitSet seen = new BitSet(Constants.MAX_ID_PER_MS);
+        for (int i = 0; i < 999; i++) {
+            Assert.assertFalse(seen.get(exponents[i]));
+            seen.set(exponents[i]);
+        }
+    }
+
+    @Test
+    public void testWideAllocationExhaustsMillisecond() {
+        final int maxExponents = 1_000_000;
+        StripedExponentAllocator allocator = new StripedExponentAllocator(maxExponents);
+        BitSet seen = new BitSet(maxExponents);
+        int[] exponents = new int[1000];
+        for (int i = 0; i < maxExponents; ) {
+            int exponent = allocator.allocate(100);
+            Assert.assertFalse(seen.get(exponent));
+            seen.set(exponent);
+            int claimed = allocator.allocate(100, exponents, 0, exponents.length);
+            for (int j = 0; j < claimed; j++) {
+                Assert.assertFalse(seen.get(exponents[j]));
+                seen.set(exponents[j]);
+            }
+            i += 1 + claimed;
+        }
+        Assert.assertEquals(maxExponents, seen.cardinality());
+        Assert.assertEquals(-1, allocator.allocate(100));
+        Assert.assertTrue(allocator.exhausted(100));
+        Assert.assertFalse(allocator.exhausted(101));
+        Assert.assertTrue(allocator.allocate(101, 0));
+    }
+
+    @Test
+    public void testNoAllocationForOlderTime() {
+        StripedExponentAllocator allocator = new StripedExponentAllocator(16);
+        Assert.assertTrue(allocator.allocate(101) >= 0);
+        Assert.assertEquals(-1, allocator.allocate(100));
+    }
+
+    @Test
+    public void testConcurrentAllocationIsUnique() throws Exception {
+        StripedExponentAllocator allocator = new StripedExponentAllocator(Constants.MAX_ID_PER_MS);
+        Set<Long> issued = ConcurrentHashMap.newKeySet();
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            results.add(executorService.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    long time = System.currentTimeMillis();
+                    int exponent = allocator.allocate(time);
+                    if (exponent >= 0 && !issued.add(time * Constants.MAX_ID_PER_MS + exponent)) {
+                        return false;
+                    }
+                }
+                return true;
+            }));
+        }
+        for (Future<Boolean> result : results) {
+            Assert.assertTrue(result.get());
+        }
+        executorService.shutdownNow();
+    }
+}
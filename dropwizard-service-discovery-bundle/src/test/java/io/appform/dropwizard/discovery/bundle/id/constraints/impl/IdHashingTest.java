@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.appform.dropwizard.discovery.bundle.id.constraints.impl;
+
+import com.google.common.hash.Hashing;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Test on {@link IdHashing}
+ */
+public class IdHashingTest {
+
+    @Test
+    public void testMurmur3MatchesGuava() {
+        for (String value : new String[]{"", "a", "ab", "abc", "abcd", "ABC2011250959030643972247", "ID-€-é"}) {
+            Assert.assertEquals(Hashing.murmur3_32(7).hashBytes(value.getBytes(StandardCharsets.UTF_8)).asInt(),
+                                IdHashing.murmur3x32(value, 7));
+        }
+    }
+
+    @Test
+    public void testMurmur2MatchesKafka() {
+        //Vectors from Kafka's UtilsTest
+        Assert.assertEquals(-973932308, IdHashing.murmur2("21"));
+        Assert.assertEquals(-790332482, IdHashing.murmur2("foobar"));
+        Assert.assertEquals(-985981536, IdHashing.murmur2("a-little-bit-long-string"));
+        Assert.assertEquals(-1486304829, IdHashing.murmur2("a-little-bit-longer-string"));
+        Assert.assertEquals(-58897971, IdHashing.murmur2("lkjh234lh9fiuh90y23oiuhsafujhadof229phr9h19h89h8"));
+        Assert.assertEquals(479470107, IdHashing.murmur2("abc"));
+    }
+
+    @Test
+    public void testXxHash64() {
+        Assert.assertEquals(0xEF46DB3751D8E999L, IdHashing.xxHash64("", 0));
+        Assert.assertEquals(0xD24EC4F1A98C6E5BL, IdHashing.xxHash64("a", 0));
+        Assert.assertEquals(0x44BC2CF5AD770999L, IdHashing.xxHash64("abc", 0));
+        Assert.assertEquals(0xFBCEA83C8A378BF1L, IdHashing.xxHash64("Nobody inspects the spammish repetition", 0));
+    }
+
+    @Test
+    public void testJumpConsistentHashMovesKeysOnlyToNewBucket() {
+        Assert.assertEquals(0, IdHashing.jumpConsistentHash(1L, 1));
+        for (long key = 0; key < 10_000; key++) {
+            final long hash = IdHashing.xxHash64("ID" + key, 0);
+            final int before = IdHashing.jumpConsistentHash(hash, 10);
+            final int after = IdHashing.jumpConsistentHash(hash, 11);
+            Assert.assertTrue(before == after || after == 10);
+        }
+    }
+}
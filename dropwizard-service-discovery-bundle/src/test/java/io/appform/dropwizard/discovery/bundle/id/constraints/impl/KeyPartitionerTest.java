@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package io.appform.dropwizard.discovery.bundle.id.constraints.impl;
+
+import io.appform.dropwizard.discovery.bundle.id.Id;
+import io.appform.dropwizard.discovery.bundle.id.IdGenerator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Test on the allocation free {@link KeyPartitioner} implementations
+ */
+public class KeyPartitionerTest {
+
+    @Test
+    public void testPartitionsInRange() {
+        IdGenerator.initialize(23);
+        final List<KeyPartitioner> partitioners = Arrays.asList(new Murmur3KeyPartitioner(7),
+                                                                new XxHashKeyPartitioner(7),
+                                                                new JumpConsistentHashKeyPartitioner(7),
+                                                                new KafkaMurmur2KeyPartitioner(7));
+        final int[][] counts = new int[partitioners.size()][7];
+        for (Id id : IdGenerator.generateBatch("TEST", 7000)) {
+            for (int i = 0; i < partitioners.size(); i++) {
+                final int partition = partitioners.get(i).partition(id);
+                Assert.assertTrue(partition >= 0 && partition < 7);
+                counts[i][partition]++;
+            }
+        }
+        for (int[] partitionCounts : counts) {
+            Assert.assertTrue(Arrays.stream(partitionCounts).allMatch(count -> count > 700));
+        }
+    }
+
+    @Test
+    public void testKafkaPartitionConstraint() {
+        IdGenerator.initialize(23);
+        final KafkaMurmur2KeyPartitioner partitioner = new KafkaMurmur2KeyPartitioner(12);
+        for (int partition = 0; partition < 12; partition++) {
+            final PartitionValidator validator = new PartitionValidator(partition, partitioner);
+            final Optional<Id> id = IdGenerator.generateWithConstraints("TXN", Collections.singletonList(validator));
+            Assert.assertTrue(id.isPresent());
+            Assert.assertEquals(partition, partitioner.partition(id.get()));
+        }
+    }
+
+    @Test
+    public void testPartitionZeroConstraint() {
+        IdGenerator.initialize(23);
+        final JavaHashCodeBasedKeyPartitioner partitioner = new JavaHashCodeBasedKeyPartitioner(16);
+        final PartitionValidator validator = new PartitionValidator(0, partitioner);
+        Assert.assertEquals(0, validator.partition());
+        for (int i = 0; i < 100; i++) {
+            final Optional<Id> id = IdGenerator.generateWithConstraints("TXN", Collections.singletonList(validator));
+            Assert.assertTrue(id.isPresent());
+            Assert.assertEquals(0, partitioner.partition(id.get()));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativePartition() {
+        new PartitionValidator(-1, new JavaHashCodeBasedKeyPartitioner(16));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPartitionCount() {
+        new JumpConsistentHashKeyPartitioner(0);
+    }
+}
@@ -16,6 +16,7 @@ import org.mockito.MockitoAnnotations;
 import java.util.UUID;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.mockito.Mockito.doReturn;
 
 public class HierarchicalEnvironmentAwareShardSelectorTest {
@@ -132,4 +133,32 @@ public class HierarchicalEnvironmentAwareShardSelectorTest {
         assertEquals(2, nodes.size());
     }
 
+    @Test
+    public void testNodesAreResolvedAgainOnlyAfterRefresh() {
+        val service = Mockito.mock(Service.class);
+        doReturn(UUID.randomUUID().toString()).when(service).getServiceName();
+        doReturn(service).when(serviceRegistry).getService();
+
+        ListMultimap<ShardInfo, ServiceNode<ShardInfo>> serviceNodes = ArrayListMultimap.create();
+        serviceNodes.put(
+                ShardInfo.builder().environment("x").build(),
+                new ServiceNode<>("host1", 8888, new ShardInfo("x")));
+        doReturn(serviceNodes).when(serviceRegistry).nodes();
+
+        val criteria = ShardInfo.builder().environment("x.y").build();
+        val nodes = hierarchicalEnvironmentAwareShardSelector.nodes(criteria, serviceRegistry);
+        assertEquals(1, nodes.size());
+        assertSame(nodes, hierarchicalEnvironmentAwareShardSelector.nodes(criteria, serviceRegistry));
+
+        ListMultimap<ShardInfo, ServiceNode<ShardInfo>> refreshedNodes = ArrayListMultimap.create();
+        refreshedNodes.put(
+                ShardInfo.builder().environment("x.y").build(),
+                new ServiceNode<>("host2", 9999, new ShardInfo("x.y")));
+        doReturn(refreshedNodes).when(serviceRegistry).nodes();
+
+        val refreshed = hierarchicalEnvironmentAwareShardSelector.nodes(criteria, serviceRegistry);
+        assertEquals(1, refreshed.size());
+        assertEquals("host2", refreshed.get(0).getHost());
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2021 Santanu Sinha <santanu.sinha@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package io.appform.dropwizard.discovery.common;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link ShardInfo}
+ */
+public class ShardInfoTest {
+
+    @Test
+    public void testInstancesAreShared() {
+        ShardInfo shardInfo = ShardInfo.builder().environment("stage.blue").build();
+        Assert.assertSame(ShardInfo.of("stage.blue"), shardInfo);
+        Assert.assertSame(ShardInfo.of("stage"), shardInfo.parent());
+        Assert.assertNull(shardInfo.parent().parent());
+        Assert.assertEquals(new ShardInfo("stage.blue"), shardInfo);
+        Assert.assertEquals(new ShardInfo("stage.blue").hashCode(), shardInfo.hashCode());
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testStandaloneInstanceCanBeChanged() {
+        ShardInfo shardInfo = new ShardInfo();
+        shardInfo.setEnvironment("stage.blue");
+        Assert.assertEquals(ShardInfo.of("stage.blue"), shardInfo);
+        Assert.assertEquals(ShardInfo.of("stage.blue").hashCode(), shardInfo.hashCode());
+        Assert.assertSame(ShardInfo.of("stage"), shardInfo.parent());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    @SuppressWarnings("deprecation")
+    public void testSharedInstanceCanNotBeChanged() {
+        ShardInfo.of("stage.blue").setEnvironment("prod");
+    }
+
+    @Test
+    public void testHierarchy() {
+        Assert.assertEquals(ImmutableList.of(ShardInfo.of("x.y.z"), ShardInfo.of("x")),
+                            Lists.newArrayList(ShardInfo.of("x.y.z")));
+        Assert.assertFalse(ShardInfo.of("").iterator().hasNext());
+        Assert.assertFalse(ShardInfo.of(null).iterator().hasNext());
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        String json = objectMapper.writeValueAsString(ShardInfo.of("x.y"));
+        Assert.assertEquals("{\"environment\":\"x.y\"}", json);
+        Assert.assertSame(ShardInfo.of("x.y"), objectMapper.readValue(json, ShardInfo.class));
+    }
+}
@@ -97,7 +97,7 @@ public class ServiceDiscoveryClient {
                 })
                 .withNodeRefreshIntervalMs(effectiveRefreshTimeMs)
                 .withDisableWatchers(disableWatchers)
-                .withShardSelector(new HierarchicalEnvironmentAwareShardSelector())
+                .withShardSelector(new HierarchicalEnvironmentAwareShardSelector(environment))
                 .build();
     }
 
@@ -3,6 +3,7 @@ package io.appform.dropwizard.discovery.client.selector;
 import com.flipkart.ranger.finder.sharded.MapBasedServiceRegistry;
 import com.flipkart.ranger.model.ServiceNode;
 import com.flipkart.ranger.model.ShardSelector;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ListMultimap;
 import io.appform.dropwizard.discovery.client.Constants;
 import io.appform.dropwizard.discovery.common.ShardInfo;
@@ -12,37 +13,92 @@ import lombok.val;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Picks nodes of the closest environment in the hierarchy that has any nodes.
+ * The registry replaces its node map on every refresh. Nodes for an environment are resolved once per such map and
+ * kept in a snapshot, so a lookup between refreshes is a volatile read and a map get.
+ * A snapshot is matched to the registry by the identity of its node map. This relies on ranger's
+ * {@link MapBasedServiceRegistry} setting a new multimap on every refresh instead of updating the current one.
+ */
 @Slf4j
 public class HierarchicalEnvironmentAwareShardSelector implements ShardSelector<ShardInfo, MapBasedServiceRegistry<ShardInfo>> {
 
+    private final String defaultEnvironment;
+    private volatile Snapshot snapshot = new Snapshot(null, null);
+
+    public HierarchicalEnvironmentAwareShardSelector() {
+        this(null);
+    }
+
+    /**
+     * @param defaultEnvironment Environment that is resolved eagerly whenever the registry changes
+     */
+    public HierarchicalEnvironmentAwareShardSelector(String defaultEnvironment) {
+        this.defaultEnvironment = defaultEnvironment;
+    }
+
     @Override
     public List<ServiceNode<ShardInfo>> nodes(final ShardInfo criteria,
                                               final MapBasedServiceRegistry<ShardInfo> serviceRegistry) {
         val serviceNodes = serviceRegistry.nodes();
-        val serviceName = serviceRegistry.getService().getServiceName();
-        val environment = criteria.getEnvironment();
+        Snapshot current = snapshot;
+        if (current.serviceNodes != serviceNodes) {
+            current = new Snapshot(serviceNodes, serviceRegistry.getService().getServiceName());
+            if (null != defaultEnvironment) {
+                current.nodes(defaultEnvironment);
+            }
+            snapshot = current;
+        }
+        return current.nodes(criteria.getEnvironment());
+    }
 
-        if (Objects.equals(environment, Constants.ALL_ENV)) {
-            return allNodes(serviceNodes);
+    /**
+     * Nodes resolved per environment for one version of the registry's node map
+     */
+    private static final class Snapshot {
+        private final ListMultimap<ShardInfo, ServiceNode<ShardInfo>> serviceNodes;
+        private final String serviceName;
+        private final Map<String, List<ServiceNode<ShardInfo>>> resolved = new ConcurrentHashMap<>();
+
+        private Snapshot(ListMultimap<ShardInfo, ServiceNode<ShardInfo>> serviceNodes, String serviceName) {
+            this.serviceNodes = serviceNodes;
+            this.serviceName = serviceName;
         }
-        for (ShardInfo shardInfo : criteria) {
-            val currentEnvNodes = serviceNodes.get(shardInfo);
-            if (!currentEnvNodes.isEmpty()) {
-                log.debug("Effective environment for discovery of {} is {}", serviceName, environment);
-                return currentEnvNodes;
+
+        List<ServiceNode<ShardInfo>> nodes(String environment) {
+            if (null == serviceNodes || null == environment) {
+                return Collections.emptyList();
             }
+            val nodes = resolved.get(environment);
+            return null != nodes
+                   ? nodes
+                   : resolved.computeIfAbsent(environment, this::resolve);
+        }
+
+        private List<ServiceNode<ShardInfo>> resolve(String environment) {
+            if (Objects.equals(environment, Constants.ALL_ENV)) {
+                return allNodes();
+            }
+            for (ShardInfo shardInfo : ShardInfo.of(environment)) {
+                val currentEnvNodes = serviceNodes.get(shardInfo);
+                if (!currentEnvNodes.isEmpty()) {
+                    log.debug("Effective environment for discovery of {} is {}", serviceName, shardInfo.getEnvironment());
+                    return ImmutableList.copyOf(currentEnvNodes);
+                }
+            }
+            return Collections.emptyList();
         }
-        return Collections.emptyList();
-    }
 
-    private List<ServiceNode<ShardInfo>> allNodes(ListMultimap<ShardInfo, ServiceNode<ShardInfo>> serviceNodes) {
-        return serviceNodes.asMap()
-                .values()
-                .stream()
-                .flatMap(Collection::stream)
-                .collect(Collectors.toList());
+        private List<ServiceNode<ShardInfo>> allNodes() {
+            return serviceNodes.asMap()
+                    .values()
+                    .stream()
+                    .flatMap(Collection::stream)
+                    .collect(ImmutableList.toImmutableList());
+        }
     }
 }
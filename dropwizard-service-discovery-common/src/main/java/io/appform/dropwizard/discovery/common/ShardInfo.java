@@ -17,46 +17,151 @@
 
 package io.appform.dropwizard.discovery.common;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.Strings;
-import lombok.*;
-import lombok.extern.slf4j.Slf4j;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import lombok.Builder;
+import lombok.Getter;
 
 import javax.validation.constraints.NotNull;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 
 /**
  * Basic shard info used for discovery.
+ * Use {@link #of(String)} to get the shared instance for an environment. The parent environment and the hash code
+ * are computed once, so walks up the hierarchy do not allocate. Shared instances are held weakly, environments that
+ * are no longer referenced anywhere are garbage collected.
+ * Shared instances are immutable. The no-arg constructor and the setter are only kept for code that builds standalone
+ * instances the old way.
  */
-@Data
-@AllArgsConstructor
-@NoArgsConstructor
-@Builder
-@EqualsAndHashCode
-@ToString
-@Slf4j
 public class ShardInfo implements Iterable<ShardInfo> {
-    private static final String SEPARATOR = ".";
+    private static final char SEPARATOR = '.';
+    private static final ShardInfo NO_ENVIRONMENT = new ShardInfo(null);
+    private static final Interner<ShardInfo> INTERNER = Interners.newWeakInterner();
 
+    @Getter
     private String environment;
+    private ShardInfo parent;
+    private int hashCode;
+
+    /**
+     * Creates a standalone instance without an environment.
+     *
+     * @deprecated Use {@link #of(String)}
+     */
+    @Deprecated
+    public ShardInfo() {
+        this(null);
+    }
+
+    /**
+     * Creates a standalone instance. Prefer {@link #of(String)}, which returns a shared one.
+     */
+    public ShardInfo(String environment) {
+        setFields(environment);
+    }
+
+    /**
+     * Get the shared instance for an environment
+     *
+     * @param environment Environment name
+     * @return Shard info for the environment
+     */
+    @JsonCreator
+    public static ShardInfo of(@JsonProperty("environment") String environment) {
+        if (null == environment) {
+            return NO_ENVIRONMENT;
+        }
+        return INTERNER.intern(new ShardInfo(environment));
+    }
+
+    @Builder
+    private static ShardInfo create(String environment) {
+        return of(environment);
+    }
+
+    /**
+     * Change the environment of a standalone instance.
+     *
+     * @deprecated Use {@link #of(String)} to get the instance for the environment instead
+     * @throws UnsupportedOperationException if this is a shared instance from {@link #of(String)}
+     */
+    @Deprecated
+    public void setEnvironment(String environment) {
+        if (this == of(this.environment)) {
+            throw new UnsupportedOperationException("Shared shard info for " + this.environment + " can't be changed");
+        }
+        setFields(environment);
+    }
+
+    /**
+     * @return The environment discovery falls back to when this one has no nodes, or null at the top of the hierarchy
+     */
+    public ShardInfo parent() {
+        return parent;
+    }
 
     @Override
     @NotNull
     public Iterator<ShardInfo> iterator() {
-        return new ShardInfoIterator(environment);
+        return new ShardInfoIterator(Strings.isNullOrEmpty(environment) ? null : this);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ShardInfo)) {
+            return false;
+        }
+        final ShardInfo other = (ShardInfo) o;
+        return hashCode == other.hashCode && Objects.equals(environment, other.environment);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return "ShardInfo(environment=" + environment + ")";
+    }
+
+    private void setFields(String environment) {
+        this.environment = environment;
+        this.parent = parentOf(environment);
+        this.hashCode = Objects.hashCode(environment);
+    }
+
+    private static ShardInfo parentOf(String environment) {
+        if (Strings.isNullOrEmpty(environment)) {
+            return null;
+        }
+        final int sepIndex = environment.indexOf(SEPARATOR);
+        return sepIndex <= 0 ? null : of(environment.substring(0, sepIndex));
     }
 
     public static final class ShardInfoIterator implements Iterator<ShardInfo> {
 
-        private String remainingEnvironment;
+        private ShardInfo next;
 
         public ShardInfoIterator(String remainingEnvironment) {
-            this.remainingEnvironment = remainingEnvironment;
+            this(Strings.isNullOrEmpty(remainingEnvironment) ? null : of(remainingEnvironment));
+        }
+
+        private ShardInfoIterator(ShardInfo next) {
+            this.next = next;
         }
 
         @Override
         public boolean hasNext() {
-            return !Strings.isNullOrEmpty(remainingEnvironment);
+            return null != next;
         }
 
         @Override
@@ -64,10 +169,8 @@ public class ShardInfo implements Iterable<ShardInfo> {
             if(!hasNext()) {
                 throw new NoSuchElementException();
             }
-            log.debug("Effective environment for discovery is {}", remainingEnvironment);
-            val shardInfo = new ShardInfo(remainingEnvironment);
-            val sepIndex = remainingEnvironment.indexOf(SEPARATOR);
-            remainingEnvironment = sepIndex < 0 ? "" : remainingEnvironment.substring(0, sepIndex);
+            final ShardInfo shardInfo = next;
+            next = shardInfo.parent;
             return shardInfo;
         }
     }